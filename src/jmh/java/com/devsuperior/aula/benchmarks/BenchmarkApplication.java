@@ -0,0 +1,39 @@
+package com.devsuperior.aula.benchmarks;
+
+import com.devsuperior.aula.AulaApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+//Sobe a aplicacao sem servidor web, com um H2 em memoria proprio e sem log de SQL, para os benchmarks que usam o Spring
+final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(String... extraProperties) {
+        return start(ApplicationStartup.DEFAULT, extraProperties);
+    }
+
+    //applicationStartup recebe as etapas do boot (use um BufferingApplicationStartup para ver as duracoes)
+    static ConfigurableApplicationContext start(ApplicationStartup applicationStartup, String... extraProperties) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID(),
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.properties.hibernate.format_sql=false",
+                "--logging.level.root=WARN",
+                "--spring.main.banner-mode=off"));
+        for (String property : extraProperties) {
+            args.add("--" + property);
+        }
+        SpringApplication application = new SpringApplication(AulaApplication.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        application.setApplicationStartup(applicationStartup);
+        return application.run(args.toArray(String[]::new));
+    }
+}
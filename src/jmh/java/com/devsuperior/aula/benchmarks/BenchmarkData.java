@@ -0,0 +1,32 @@
+package com.devsuperior.aula.benchmarks;
+
+import com.devsuperior.aula.dto.CategoryDTO;
+import com.devsuperior.aula.dto.ProductDTO;
+import com.devsuperior.aula.entities.Category;
+import com.devsuperior.aula.entities.Product;
+
+//Massa de dados dos benchmarks. Os ids de categoria ficam entre 1 e 3 para existirem no import.sql
+final class BenchmarkData {
+
+    static final String[] CATEGORY_NAMES = {"Livros", "Eletrônicos", "Computadores"};
+
+    private BenchmarkData() {
+    }
+
+    static Product product(long id, int categoryCount) {
+        Product product = new Product(id, "Produto " + id, 100.0 + id);
+        for (int i = 0; i < categoryCount; i++) {
+            product.getCategories().add(new Category((long) i + 1, "Categoria " + i));
+        }
+        return product;
+    }
+
+    static ProductDTO productDto(long id, int categoryCount) {
+        ProductDTO dto = new ProductDTO(id == 0 ? null : id, "Produto " + id, 100.0 + id);
+        for (int i = 0; i < categoryCount; i++) {
+            long categoryId = i % CATEGORY_NAMES.length + 1;
+            dto.getCategories().add(new CategoryDTO(categoryId, CATEGORY_NAMES[(int) categoryId - 1]));
+        }
+        return dto;
+    }
+}
@@ -0,0 +1,151 @@
+package com.devsuperior.aula.benchmarks;
+
+import com.devsuperior.aula.AulaApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+//Carga HTTP de verdade (Tomcat + Spring MVC + Jackson + JPA) contra um catalogo sintetico do CatalogGenerator,
+//com o servidor e os clientes na mesma JVM. Cada thread do JMH eh um cliente com o seu proprio gerador aleatorio
+//(seed fixa por thread), entao a sequencia de requisicoes se repete entre execucoes.
+//Throughput da a vazao (requisicoes por ms somando as threads), SampleTime da os percentis de latencia (p50, p90, p99, p99.9)
+//e o profiler de GC do profile benchmarks da a alocacao por requisicao (servidor e cliente juntos).
+//Ex: ./mvnw -Pbenchmarks test-compile exec:exec -Djmh.include=CatalogLoad -Djmh.args="-p products=1000000 -p categories=10000 -t 32"
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(16)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class CatalogLoadBenchmark {
+
+    private static final String[] QUERIES = {"notebook", "mouse", "monitor pro", "usb", "cabo", "gamer", "wireless", "fone"};
+
+    @Param({"100000"})
+    private int products;
+
+    @Param({"1000"})
+    private int categories;
+
+    //Com o cache HTTP ligado os GETs repetidos nao chegam no service; desligado mede o caminho inteiro
+    @Param({"false"})
+    private boolean httpCache;
+
+    @Param({"false"})
+    private boolean virtualThreads;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+    private long minProductId;
+    private long maxProductId;
+    private long minCategoryId;
+    private long maxCategoryId;
+
+    @State(Scope.Thread)
+    public static class Client {
+
+        private SplittableRandom random;
+
+        @Setup(Level.Trial)
+        public void setUp(ThreadParams params) {
+            random = new SplittableRandom(42 + params.getThreadIndex());
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = SpringApplication.run(AulaApplication.class,
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:load-" + UUID.randomUUID(),
+                "--logging.level.root=WARN",
+                "--logging.level.com.devsuperior.aula.config=INFO",
+                "--spring.main.banner-mode=off",
+                "--app.sql-log.sample-rate=0",
+                "--app.generator.products=" + products,
+                "--app.generator.categories=" + categories,
+                "--app.http.cache.enabled=" + httpCache,
+                "--spring.threads.virtual.enabled=" + virtualThreads);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        minProductId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM tb_product", Long.class);
+        maxProductId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM tb_product", Long.class);
+        minCategoryId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM tb_category", Long.class);
+        maxCategoryId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM tb_category", Long.class);
+        baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+        client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        client.close();
+        context.close();
+    }
+
+    @Benchmark
+    public int insert(Client c) throws IOException, InterruptedException {
+        String body = "{\"name\": \"Carga " + c.random.nextInt(1_000_000) + "\", \"price\": " + c.random.nextInt(10, 5000)
+                + ".0, \"categories\": [{\"id\": " + randomCategory(c) + "}, {\"id\": " + randomCategory(c) + "}]}";
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/products")).header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body)), 201);
+    }
+
+    @Benchmark
+    public int findById(Client c) throws IOException, InterruptedException {
+        long id = c.random.nextLong(minProductId, maxProductId + 1);
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/products/" + id)).GET(), 200);
+    }
+
+    @Benchmark
+    public int categoryPriceRange(Client c) throws IOException, InterruptedException {
+        int minPrice = c.random.nextInt(10, 500);
+        URI uri = URI.create(baseUrl + "/categories/" + randomCategory(c) + "/products?minPrice=" + minPrice
+                + "&maxPrice=" + (minPrice + 50) + "&limit=20");
+        return send(HttpRequest.newBuilder(uri).GET(), 200);
+    }
+
+    @Benchmark
+    public int search(Client c) throws IOException, InterruptedException {
+        String q = QUERIES[c.random.nextInt(QUERIES.length)].replace(" ", "+");
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/products/search?q=" + q + "&limit=10")).GET(), 200);
+    }
+
+    private long randomCategory(Client c) {
+        return c.random.nextLong(minCategoryId, maxCategoryId + 1);
+    }
+
+    //Uma resposta diferente da esperada interrompe o benchmark: o numero so vale se todas as requisicoes deram certo
+    private int send(HttpRequest.Builder request, int expectedStatus) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(request.timeout(Duration.ofSeconds(30)).build(), HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != expectedStatus) {
+            throw new IllegalStateException(request.build().uri() + " respondeu " + response.statusCode());
+        }
+        return response.body().length;
+    }
+}
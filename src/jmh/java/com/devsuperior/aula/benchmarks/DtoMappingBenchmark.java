@@ -0,0 +1,51 @@
+package com.devsuperior.aula.benchmarks;
+
+import com.devsuperior.aula.dto.CategoryDTO;
+import com.devsuperior.aula.dto.ProductDTO;
+import com.devsuperior.aula.entities.Category;
+import com.devsuperior.aula.entities.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+//Conversao entidade -> DTO usada em todas as respostas de produto
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoMappingBenchmark {
+
+    @Param({"0", "1", "5", "20"})
+    private int categoryCount;
+
+    private Product product;
+    private Category category;
+
+    @Setup
+    public void setUp() {
+        product = BenchmarkData.product(1L, categoryCount);
+        category = new Category(1L, "Livros");
+    }
+
+    @Benchmark
+    public ProductDTO productToDto() {
+        return new ProductDTO(product);
+    }
+
+    @Benchmark
+    public CategoryDTO categoryToDto() {
+        return new CategoryDTO(category);
+    }
+}
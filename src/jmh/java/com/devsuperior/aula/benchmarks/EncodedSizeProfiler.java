@@ -0,0 +1,44 @@
+package com.devsuperior.aula.benchmarks;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+import java.util.Collection;
+import java.util.List;
+
+//Publica como resultado do JMH (<benchmark>:bytesPerProduct) o tamanho medio de um produto codificado, registrado pelo
+//benchmark com record() no setup. Fica ligado em todos os benchmarks do profile (veja o pom) e nao aparece nos que nao registram.
+//Um @AuxCounters do tipo EVENTS nao serve aqui: o JMH soma o valor das iteracoes, e o tamanho eh o mesmo em todas
+public class EncodedSizeProfiler implements InternalProfiler {
+
+    //O profiler roda no mesmo fork do benchmark, entao um campo estatico basta
+    private static volatile double bytesPerProduct = Double.NaN;
+
+    public static void record(double value) {
+        bytesPerProduct = value;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Tamanho medio em bytes de um produto codificado";
+    }
+
+    @Override
+    public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+    }
+
+    @Override
+    public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams,
+                                                       IterationResult result) {
+        double value = bytesPerProduct;
+        if (Double.isNaN(value)) {
+            return List.of();
+        }
+        return List.of(new ScalarResult("bytesPerProduct", value, "bytes", AggregationPolicy.AVG));
+    }
+}
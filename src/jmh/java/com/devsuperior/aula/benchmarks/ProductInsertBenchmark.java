@@ -0,0 +1,53 @@
+package com.devsuperior.aula.benchmarks;
+
+import com.devsuperior.aula.dto.ProductDTO;
+import com.devsuperior.aula.services.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+//ProductService.insert de ponta a ponta (validacao, JPA, H2 embarcado, commit e indices em memoria), sem a camada HTTP
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductInsertBenchmark {
+
+    @Param({"1", "3"})
+    private int categoryCount;
+
+    private ConfigurableApplicationContext context;
+    private ProductService service;
+    private ProductDTO dto;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        service = context.getBean(ProductService.class);
+        dto = BenchmarkData.productDto(0L, categoryCount);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ProductDTO insert() {
+        return service.insert(dto);
+    }
+}
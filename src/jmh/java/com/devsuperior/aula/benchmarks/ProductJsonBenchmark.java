@@ -0,0 +1,58 @@
+package com.devsuperior.aula.benchmarks;
+
+import com.devsuperior.aula.dto.ProductDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+//Serializacao e desserializacao JSON do ProductDTO com o ObjectMapper configurado como o do Spring MVC
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductJsonBenchmark {
+
+    @Param({"0", "1", "5", "20"})
+    private int categoryCount;
+
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private ProductDTO dto;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+        writer = mapper.writerFor(ProductDTO.class);
+        reader = mapper.readerFor(ProductDTO.class);
+        dto = BenchmarkData.productDto(1L, categoryCount);
+        json = writer.writeValueAsBytes(dto);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return writer.writeValueAsBytes(dto);
+    }
+
+    @Benchmark
+    public ProductDTO deserialize() throws IOException {
+        return reader.readValue(json);
+    }
+}
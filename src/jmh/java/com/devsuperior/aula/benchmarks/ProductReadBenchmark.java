@@ -0,0 +1,110 @@
+package com.devsuperior.aula.benchmarks;
+
+import com.devsuperior.aula.dto.ProductDTO;
+import com.devsuperior.aula.entities.Product;
+import com.devsuperior.aula.services.ProductService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//Leitura de uma pagina de produtos com categorias:
+//  entitiesReadWrite: entidades com JOIN FETCH numa transacao comum (snapshot de dirty checking e flush no commit) + copia para DTO
+//  entitiesReadOnly:  a mesma consulta numa transacao read-only (sem snapshot nem flush) + copia para DTO
+//  projection:        ProductService.findByIds, linhas planas (ProductCategoryRow) agrupadas direto em DTO, transacao read-only
+//Compare a vazao e o gc.alloc.rate.norm (bytes por operacao) dos tres
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductReadBenchmark {
+
+    private static final int CATALOG_SIZE = 2000;
+
+    //Base de comparacao: os produtos como entidades, com as categorias num JOIN FETCH (a aplicacao usa ProductRepository.findRowsByIdIn)
+    private static final String ENTITIES_BY_IDS = "SELECT DISTINCT p FROM Product p LEFT JOIN FETCH p.categories WHERE p.id IN :ids";
+
+    @Param({"20", "200"})
+    private int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private EntityManager entityManager;
+    private ProductService service;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+    private List<Long> ids;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(context.getBean(EntityManagerFactory.class));
+        service = context.getBean(ProductService.class);
+        PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        List<ProductDTO> catalog = new ArrayList<>();
+        for (int i = 1; i <= CATALOG_SIZE; i++) {
+            catalog.add(BenchmarkData.productDto(0L, 3));
+        }
+        ids = new ArrayList<>();
+        for (ProductDTO dto : service.insertAll(catalog).getInserted()) {
+            if (ids.size() < pageSize) {
+                ids.add(dto.getId());
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<ProductDTO> entitiesReadWrite() {
+        return readWrite.execute(status -> toDtos(findEntities()));
+    }
+
+    @Benchmark
+    public List<ProductDTO> entitiesReadOnly() {
+        return readOnly.execute(status -> toDtos(findEntities()));
+    }
+
+    @Benchmark
+    public List<ProductDTO> projection() {
+        return service.findByIds(ids);
+    }
+
+    private List<Product> findEntities() {
+        return entityManager.createQuery(ENTITIES_BY_IDS, Product.class).setParameter("ids", ids).getResultList();
+    }
+
+    private List<ProductDTO> toDtos(List<Product> products) {
+        List<ProductDTO> result = new ArrayList<>(products.size());
+        for (Product product : products) {
+            result.add(new ProductDTO(product));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,59 @@
+package com.devsuperior.aula.benchmarks;
+
+import com.devsuperior.aula.dto.ProductSearchResultDTO;
+import com.devsuperior.aula.services.ProductSearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+//Latencia do ProductSearchIndex.search com um catalogo em escala (nomes como os do CatalogGenerator: duas palavras de um
+//vocabulario pequeno + o id, entao prefixos curtos como "m" ou "1" casam com boa parte do catalogo).
+//Cada consulta eh o que o campo de busca manda a cada tecla digitada, com limit 10. Medido num sandbox de 1 CPU:
+//90 a 200 us por busca com 1 milhao de produtos (antes do limite de candidatos: 27 a 78 ms)
+//  mvn -Pbenchmarks test-compile exec:exec -Djmh.include=ProductSearchBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx3g")
+public class ProductSearchBenchmark {
+
+    private static final String[] WORDS = {"Notebook", "Mouse", "Teclado", "Monitor", "Cadeira", "Livro", "Fone", "Cabo",
+            "Carregador", "Camera", "Tablet", "Smartphone", "Impressora", "Roteador", "Headset", "Webcam", "Mochila", "Caneta",
+            "Luminaria", "Console", "Gamer", "Pro", "Max", "Mini", "Ultra", "Slim", "Wireless", "USB", "HD", "Bluetooth"};
+
+    @Param({"1000000"})
+    private int products;
+
+    @Param({"m", "mo", "mouse", "1", "mouse m"})
+    private String query;
+
+    private ProductSearchIndex index;
+
+    @Setup
+    public void setUp() {
+        index = new ProductSearchIndex();
+        SplittableRandom random = new SplittableRandom(42);
+        for (long id = 1; id <= products; id++) {
+            index.index(id, WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + id, 10.0);
+        }
+    }
+
+    @Benchmark
+    public List<ProductSearchResultDTO> search() {
+        return index.search(query, 10);
+    }
+}
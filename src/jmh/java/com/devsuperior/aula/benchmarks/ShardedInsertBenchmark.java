@@ -0,0 +1,59 @@
+package com.devsuperior.aula.benchmarks;
+
+import com.devsuperior.aula.dto.ProductDTO;
+import com.devsuperior.aula.services.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+//Vazao do ProductService.insert com varias threads gravando ao mesmo tempo, com o catalogo em 1, 2 ou 4 bancos H2
+//(app.sharding.shards). Cada insert eh uma transacao com commit proprio, entao com um banco so todas as threads
+//disputam o mesmo commit e os mesmos locks; com sharding cada insert vai para um banco so e as threads se dividem entre eles.
+//O ganho depende de nucleos livres: numa maquina com 1 ou 2 CPUs o custo da CPU domina e as curvas ficam parecidas.
+//  mvn -Pbenchmarks test-compile exec:exec -Djmh.include=ShardedInsertBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class ShardedInsertBenchmark {
+
+    @Param({"1", "2", "4"})
+    private int shards;
+
+    private ConfigurableApplicationContext context;
+    private ProductService service;
+    private ProductDTO dto;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start("app.sharding.shards=" + shards);
+        service = context.getBean(ProductService.class);
+        dto = BenchmarkData.productDto(0L, 2);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ProductDTO insert() {
+        return service.insert(dto);
+    }
+}
@@ -0,0 +1,160 @@
+package com.devsuperior.aula.benchmarks;
+
+import com.devsuperior.aula.config.CatalogSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+//Tempo de boot (ate o contexto pronto, sem servidor web) com o catalogo vindo do import.sql ou de um snapshot H2.
+//extraProducts produtos (com uma categoria cada) sao somados ao import.sql num script extra, e o snapshot eh gerado a partir dele.
+//Cada medida eh o primeiro boot de uma JVM nova (um fork por medida, sem aquecimento), como numa instancia recem criada.
+//Depois de cada boot sao impressas as etapas mais demoradas (BufferingApplicationStartup): fases do SpringApplication,
+//refresh do contexto e os beans mais lentos de criar (EntityManagerFactory, repositorios, indices...)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(3)
+public class StartupBenchmark {
+
+    private static final Path WORK_DIR = Paths.get("target", "startup-benchmark");
+    private static final long FIRST_EXTRA_ID = 10_000;
+
+    @Param({"0", "10000"})
+    private int extraProducts;
+
+    @Param({"import", "snapshot"})
+    private String mode;
+
+    private Path importScript;
+    private Path snapshot;
+    private BufferingApplicationStartup startup;
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void prepare() throws IOException, SQLException {
+        Files.createDirectories(WORK_DIR);
+        importScript = WORK_DIR.resolve("extra-" + extraProducts + ".sql").toAbsolutePath();
+        snapshot = WORK_DIR.resolve("catalog-" + extraProducts + ".mv.db").toAbsolutePath();
+        if (!Files.exists(importScript)) {
+            writeImportScript();
+        }
+        if ("snapshot".equals(mode) && !Files.exists(snapshot)) {
+            createSnapshotInAnotherJvm();
+        }
+    }
+
+    //Gera o snapshot: sobe com o import.sql + script extra e grava o banco. Roda numa JVM separada (createSnapshotInAnotherJvm)
+    //para o boot medido continuar sendo o primeiro desta JVM
+    public static void main(String[] args) throws IOException, SQLException {
+        try (ConfigurableApplicationContext seeded = BenchmarkApplication.start(importProperty(Paths.get(args[0])))) {
+            CatalogSnapshot.export(seeded.getBean(JdbcTemplate.class), Paths.get(args[1]));
+        }
+    }
+
+    @Benchmark
+    public ConfigurableApplicationContext boot() {
+        startup = new BufferingApplicationStartup(20_000);
+        context = "snapshot".equals(mode)
+                ? BenchmarkApplication.start(startup, "app.snapshot.restore-from=" + snapshot)
+                : BenchmarkApplication.start(startup, importProperty());
+        return context;
+    }
+
+    @TearDown(Level.Iteration)
+    public void close() {
+        printBreakdown();
+        context.close();
+    }
+
+    private String importProperty() {
+        return importProperty(importScript);
+    }
+
+    private static String importProperty(Path script) {
+        return "spring.jpa.properties.hibernate.hbm2ddl.import_files=/import.sql," + script.toUri();
+    }
+
+    private void createSnapshotInAnotherJvm() throws IOException {
+        Path java = Paths.get(System.getProperty("java.home"), "bin", "java");
+        Process process = new ProcessBuilder(java.toString(), "-cp", System.getProperty("java.class.path"),
+                StartupBenchmark.class.getName(), importScript.toString(), snapshot.toString())
+                .inheritIO().start();
+        try {
+            if (process.waitFor() != 0 || !Files.exists(snapshot)) {
+                throw new IllegalStateException("Falha ao gerar o snapshot " + snapshot);
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    //Uma linha por statement, como o import.sql
+    private void writeImportScript() throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(importScript, StandardCharsets.UTF_8)) {
+            for (long id = FIRST_EXTRA_ID; id < FIRST_EXTRA_ID + extraProducts; id++) {
+                out.write("INSERT INTO tb_product (id, name, price) VALUES (" + id + ", 'Produto " + id + "', " + (id % 5000) + ".0);\n");
+                out.write("INSERT INTO tb_product_category (product_id, category_id) VALUES (" + id + ", " + (id % 3 + 1) + ");\n");
+            }
+            out.write("ALTER SEQUENCE tb_product_seq RESTART WITH " + (FIRST_EXTRA_ID + extraProducts + 100) + ";\n");
+        }
+    }
+
+    private void printBreakdown() {
+        StartupTimeline timeline = startup.getBufferedTimeline();
+        Map<String, Long> phases = new HashMap<>();
+        Map<String, Long> beans = new HashMap<>();
+        for (StartupTimeline.TimelineEvent event : timeline.getEvents()) {
+            StartupStep step = event.getStartupStep();
+            long millis = event.getDuration().toMillis();
+            if (step.getName().equals("spring.beans.instantiate")) {
+                for (StartupStep.Tag tag : step.getTags()) {
+                    if (tag.getKey().equals("beanName")) {
+                        beans.merge(tag.getValue(), millis, Long::sum);
+                    }
+                }
+            }
+            else if (step.getParentId() == null || step.getName().startsWith("spring.boot.application")
+                    || step.getName().equals("spring.context.refresh")) {
+                phases.merge(step.getName(), millis, Long::sum);
+            }
+        }
+        StringBuilder out = new StringBuilder(String.format("%nBoot %s, %d produtos extras:%n", mode, extraProducts));
+        phases.entrySet().stream().sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                .forEach(e -> out.append(String.format("  %6d ms  %s%n", e.getValue(), e.getKey())));
+        out.append("  beans mais lentos (inclui as dependencias criadas dentro deles):\n");
+        beans.entrySet().stream().sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())).limit(10)
+                .forEach(e -> out.append(String.format("  %6d ms  %s%n", e.getValue(), e.getKey())));
+        System.out.print(out);
+    }
+}
@@ -0,0 +1,74 @@
+package com.devsuperior.aula.benchmarks;
+
+import com.devsuperior.aula.dto.ProductDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//JSON x CBOR x Smile para um lote de ProductDTO (batchSize 1 = POST /products, maior = POST /products/batch),
+//com os ObjectMappers montados como os conversores do Spring MVC. A vazao eh em lotes por ms;
+//o tamanho em bytes por produto de cada formato sai como resultado secundario (bytesPerProduct, via EncodedSizeProfiler)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    @Param({"1", "100"})
+    private int batchSize;
+
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private List<ProductDTO> batch;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper mapper = switch (format) {
+            case "json" -> Jackson2ObjectMapperBuilder.json().build();
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor().build();
+            case "smile" -> Jackson2ObjectMapperBuilder.smile().build();
+            default -> throw new IllegalArgumentException(format);
+        };
+        batch = new ArrayList<>(batchSize);
+        for (int i = 1; i <= batchSize; i++) {
+            batch.add(BenchmarkData.productDto(i, 3));
+        }
+        writer = mapper.writerFor(mapper.getTypeFactory().constructCollectionType(List.class, ProductDTO.class));
+        reader = mapper.readerFor(mapper.getTypeFactory().constructCollectionType(List.class, ProductDTO.class));
+        encoded = writer.writeValueAsBytes(batch);
+        EncodedSizeProfiler.record((double) encoded.length / batchSize);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return writer.writeValueAsBytes(batch);
+    }
+
+    @Benchmark
+    public List<ProductDTO> decode() throws IOException {
+        return reader.readValue(encoded);
+    }
+}
@@ -1,13 +1,24 @@
 package com.devsuperior.aula;
 
+import com.devsuperior.aula.config.AulaRuntimeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.data.web.config.EnableSpringDataWebSupport;
+
+import static org.springframework.data.web.config.EnableSpringDataWebSupport.PageSerializationMode.VIA_DTO;
 
 @SpringBootApplication
+@EnableSpringDataWebSupport(pageSerializationMode = VIA_DTO) //formato JSON estavel para as respostas Page
+@ImportRuntimeHints(AulaRuntimeHints.class) //classes criadas por reflexao pelo Hibernate, para o AOT
 public class AulaApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(AulaApplication.class, args);
+		SpringApplication application = new SpringApplication(AulaApplication.class);
+		//Guarda as etapas do boot (com duracao) para o /actuator/startup mostrar onde o tempo de startup foi gasto
+		application.setApplicationStartup(new BufferingApplicationStartup(4096));
+		application.run(args);
 	}
 
 }
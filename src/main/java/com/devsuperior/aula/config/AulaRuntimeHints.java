@@ -0,0 +1,22 @@
+package com.devsuperior.aula.config;
+
+import com.devsuperior.aula.entities.AssignableSequenceGenerator;
+import com.devsuperior.aula.metrics.PersistenceSessionEventListener;
+import com.devsuperior.aula.metrics.SqlStatementInspector;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+//Dicas para o processamento AOT (e para uma imagem nativa): classes que o Hibernate instancia por reflexao a partir
+//do nome no application.properties ou de uma anotacao (o gerador de id de Product), que o Spring nao enxerga como beans,
+//e o import.sql lido do classpath
+public class AulaRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        hints.reflection().registerType(SqlStatementInspector.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        hints.reflection().registerType(PersistenceSessionEventListener.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        hints.reflection().registerType(AssignableSequenceGenerator.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        hints.resources().registerPattern("import.sql");
+    }
+}
@@ -0,0 +1,175 @@
+package com.devsuperior.aula.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.SplittableRandom;
+
+//Catalogo sintetico para testes de volume: com app.generator.products=N a aplicacao sobe e grava N produtos e
+//app.generator.categories categorias novas direto pelo JDBC, em batches de batch-size linhas por transacao.
+//A quantidade de categorias de cada produto (1 a max-categories-per-product) e a escolha das categorias seguem uma Zipf
+//com expoente zipf-exponent: a maioria dos produtos tem poucas categorias e poucas categorias concentram a maior parte dos produtos.
+//Com a mesma seed o catalogo gerado eh sempre o mesmo. Roda antes dos outros listeners de ApplicationReadyEvent,
+//entao os indices em memoria e o cache de categorias ja sobem com o catalogo gerado.
+//Para nao gerar de novo a cada boot, combine com app.snapshot.export-to (CatalogSnapshot) e suba depois pelo snapshot.
+//Com sharding cada batch eh separado por shard (uma transacao por shard) e as categorias sao replicadas em todos
+@Component
+@ConditionalOnProperty(name = "app.generator.products")
+public class CatalogGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogGenerator.class);
+
+    //Palavras dos nomes, para a busca por nome ter tokens repetidos como num catalogo de verdade
+    private static final String[] WORDS = {"Notebook", "Mouse", "Teclado", "Monitor", "Cadeira", "Livro", "Fone", "Cabo",
+            "Carregador", "Camera", "Tablet", "Smartphone", "Impressora", "Roteador", "Headset", "Webcam", "Mochila", "Caneta",
+            "Luminaria", "Console", "Gamer", "Pro", "Max", "Mini", "Ultra", "Slim", "Wireless", "USB", "HD", "Bluetooth"};
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ProductShards shards;
+
+    @Value("${app.generator.products}")
+    private int products;
+
+    @Value("${app.generator.categories:100}")
+    private int categories;
+
+    @Value("${app.generator.max-categories-per-product:8}")
+    private int maxCategoriesPerProduct;
+
+    @Value("${app.generator.zipf-exponent:1.1}")
+    private double zipfExponent;
+
+    @Value("${app.generator.seed:42}")
+    private long seed;
+
+    @Value("${app.generator.batch-size:10000}")
+    private int batchSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void generate() {
+        long start = System.nanoTime();
+        SplittableRandom random = new SplittableRandom(seed);
+
+        long[] categoryIds = insertCategories();
+        int perProduct = Math.min(maxCategoriesPerProduct, categoryIds.length);
+        double[] countCdf = zipfCdf(perProduct);
+        double[] popularityCdf = zipfCdf(categoryIds.length);
+
+        long firstId = 1;
+        for (Long maxId : shards.fanOut(shard -> jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM tb_product", Long.class))) {
+            firstId = Math.max(firstId, maxId + 1);
+        }
+        long links = 0;
+        for (long from = firstId; from < firstId + products; from += batchSize) {
+            long to = Math.min(from + batchSize, firstId + products);
+            Map<Integer, List<Object[]>> productRows = new TreeMap<>();
+            Map<Integer, List<Object[]>> linkRows = new TreeMap<>();
+            for (long id = from; id < to; id++) {
+                int shard = shards.shardOf(id);
+                productRows.computeIfAbsent(shard, s -> new ArrayList<>()).add(new Object[]{id, name(random, id), price(random)});
+                for (long categoryId : pickCategories(random, categoryIds, sample(random, countCdf) + 1, popularityCdf)) {
+                    linkRows.computeIfAbsent(shard, s -> new ArrayList<>()).add(new Object[]{id, categoryId});
+                    links++;
+                }
+            }
+            productRows.forEach((shard, rows) -> shards.inTransaction(shard, () -> {
+                jdbcTemplate.batchUpdate("INSERT INTO tb_product (id, name, price) VALUES (?, ?, ?)", rows);
+                jdbcTemplate.batchUpdate("INSERT INTO tb_product_category (product_id, category_id) VALUES (?, ?)",
+                        linkRows.getOrDefault(shard, List.of()));
+                return null;
+            }));
+            if ((to - firstId) % (batchSize * 10L) == 0) {
+                logger.info("Catalogo sintetico: {} de {} produtos", to - firstId, products);
+            }
+        }
+
+        //O id dos produtos vem de uma sequence com blocos de 50: ela recomeca bem depois do ultimo id gerado.
+        //Com sharding eh a sequence do shard 0 que reserva os ids de todos (ProductShards.nextId)
+        jdbcTemplate.execute("ALTER SEQUENCE tb_product_seq RESTART WITH " + (firstId + products + 100));
+        logger.info("Catalogo sintetico gerado: {} produtos, {} categorias, {} vinculos em {} ms",
+                products, categoryIds.length, links, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    //As categorias usam IDENTITY: grava os nomes em batch e depois le os ids gerados (sempre no shard 0, fora de on())
+    private long[] insertCategories() {
+        Long before = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM tb_category", Long.class);
+        List<Object[]> rows = new ArrayList<>(categories);
+        for (int i = 1; i <= categories; i++) {
+            rows.add(new Object[]{"Categoria " + i});
+        }
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.batchUpdate("INSERT INTO tb_category (name) VALUES (?)", rows));
+        shards.replicateCategories();
+        return jdbcTemplate.queryForList("SELECT id FROM tb_category WHERE id > ? ORDER BY id", Long.class, before)
+                .stream().mapToLong(Long::longValue).toArray();
+    }
+
+    //count categorias distintas, sorteadas pela popularidade (as primeiras categorias sao as mais populares)
+    private long[] pickCategories(SplittableRandom random, long[] categoryIds, int count, double[] popularityCdf) {
+        long[] picked = new long[count];
+        int size = 0;
+        while (size < count) {
+            long candidate = categoryIds[sample(random, popularityCdf)];
+            boolean repeated = false;
+            for (int i = 0; i < size; i++) {
+                repeated |= picked[i] == candidate;
+            }
+            if (!repeated) {
+                picked[size++] = candidate;
+            }
+        }
+        return picked;
+    }
+
+    private String name(SplittableRandom random, long id) {
+        return WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + id;
+    }
+
+    //Log-normal em torno de 150, com 2 casas: muitos produtos baratos e poucos caros
+    private double price(SplittableRandom random) {
+        double gaussian = Math.sqrt(-2 * Math.log(1 - random.nextDouble())) * Math.cos(2 * Math.PI * random.nextDouble());
+        return Math.round(Math.exp(5.0 + gaussian) * 100) / 100.0;
+    }
+
+    //Distribuicao acumulada da Zipf: P(k) proporcional a 1 / k^zipfExponent, k = 1..n
+    private double[] zipfCdf(int n) {
+        double[] cdf = new double[n];
+        double sum = 0;
+        for (int k = 1; k <= n; k++) {
+            sum += 1.0 / Math.pow(k, zipfExponent);
+            cdf[k - 1] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cdf[i] /= sum;
+        }
+        return cdf;
+    }
+
+    //Indice (0..n-1) sorteado pela distribuicao acumulada
+    private static int sample(SplittableRandom random, double[] cdf) {
+        int index = Arrays.binarySearch(cdf, random.nextDouble());
+        return Math.min(index < 0 ? -index - 1 : index, cdf.length - 1);
+    }
+}
@@ -0,0 +1,85 @@
+package com.devsuperior.aula.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+//Gera o snapshot usado pelo modo de startup rapido (SnapshotEnvironmentPostProcessor).
+//Sobe normalmente (schema + import.sql ou o que ja estiver no banco), grava o banco inteiro num H2 em arquivo
+//(app.snapshot.export-to, ex: target/snapshot/catalog.mv.db) e encerra:
+//  ./mvnw spring-boot:run -Dspring-boot.run.arguments=--app.snapshot.export-to=target/snapshot/catalog.mv.db
+//O banco em memoria eh copiado com SCRIPT/RUNSCRIPT dentro do proprio H2 e o arquivo final eh compactado
+@Component
+@ConditionalOnProperty(name = "app.snapshot.export-to")
+public class CatalogSnapshot {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogSnapshot.class);
+
+    public static final String FILE_NAME = "catalog.mv.db";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    private ProductShards shards;
+
+    @Value("${app.snapshot.export-to}")
+    private String exportTo;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void exportAndExit() throws IOException, SQLException {
+        //O snapshot eh um banco so; com sharding ele teria so os produtos do shard 0
+        if (shards.isSharded()) {
+            throw new IllegalStateException("app.snapshot.export-to nao funciona com app.sharding.shards > 1");
+        }
+        export(jdbcTemplate, Paths.get(exportTo));
+        System.exit(SpringApplication.exit(context));
+    }
+
+    //Grava o banco do jdbcTemplate no arquivo target (.mv.db), substituindo o que ja existir
+    public static void export(JdbcTemplate jdbcTemplate, Path target) throws IOException, SQLException {
+        long start = System.nanoTime();
+        Path file = target.toAbsolutePath();
+        Files.createDirectories(file.getParent());
+        Files.deleteIfExists(file);
+        Path script = Files.createTempFile("aula-snapshot", ".sql.gz");
+        try {
+            jdbcTemplate.execute("SCRIPT TO '" + script + "' COMPRESSION GZIP");
+            try (Connection connection = DriverManager.getConnection("jdbc:h2:file:" + databaseName(file), "sa", "");
+                 Statement statement = connection.createStatement()) {
+                statement.execute("RUNSCRIPT FROM '" + script + "' COMPRESSION GZIP");
+                statement.execute("SHUTDOWN COMPACT");
+            }
+        }
+        finally {
+            Files.deleteIfExists(script);
+        }
+        logger.info("Snapshot gravado em {}: {} bytes em {} ms", file, Files.size(file), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    //O H2 recebe o caminho sem a extensao .mv.db
+    static String databaseName(Path file) {
+        String path = file.toAbsolutePath().toString();
+        return path.endsWith(".mv.db") ? path.substring(0, path.length() - ".mv.db".length()) : path;
+    }
+}
@@ -0,0 +1,38 @@
+package com.devsuperior.aula.config;
+
+import com.devsuperior.aula.metrics.PersistenceMetricsInterceptor;
+import com.devsuperior.aula.metrics.SqlLogger;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+//Liga as metricas de persistencia por requisicao nas rotas de produto e passa a configuracao do log de SQL para o SqlLogger.
+//O SqlStatementInspector e o PersistenceSessionEventListener sao registrados no Hibernate pelo application.properties
+@Configuration
+public class PersistenceMetricsConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.sql-log.sample-rate:0.0}")
+    private double sampleRate;
+
+    @Value("${app.sql-log.slow-threshold-ms:200}")
+    private long slowThresholdMillis;
+
+    @PostConstruct
+    public void configureSqlLogger() {
+        SqlLogger.configure(sampleRate, slowThresholdMillis);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new PersistenceMetricsInterceptor(meterRegistry)).addPathPatterns("/products", "/products/**")
+                //o export roda numa thread assincrona do Spring MVC, fora do ciclo normal do interceptor
+                .excludePathPatterns("/products/export");
+    }
+}
@@ -0,0 +1,225 @@
+package com.devsuperior.aula.config;
+
+import com.devsuperior.aula.metrics.PersistenceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+//Particionamento de tb_product e tb_product_category por id do produto (app.sharding.shards, veja ShardingConfig).
+//Cada produto fica inteiro (linha + vinculos) em um shard so, escolhido por um hash do id; tb_category eh copiada em todos.
+//Quem le ou grava produtos escolhe o shard com on(shard, ...) antes da primeira consulta: o ShardRoutingDataSource
+//entrega a conexao do shard atual da thread. Leituras que nao sabem o shard (listagens, reconstrucao dos indices)
+//rodam em todos com fanOut, em paralelo, e juntam os resultados.
+//Com um shard so (o padrao) nao existe roteamento: on() so executa o trabalho e fanOut roda na propria thread
+@Component
+public class ProductShards {
+
+    //Mesmo allocationSize da sequence de Product: cada ida ao banco reserva um bloco de ids
+    private static final int ID_BLOCK_SIZE = 50;
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.sharding.shards:1}")
+    private int count;
+
+    private TransactionTemplate transactionTemplate;
+    private TransactionTemplate readOnlyTemplate;
+
+    //As consultas em paralelo esperam pelo banco, entao virtual threads bastam (uma por shard por chamada)
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    //Bloco de ids reservado: nextId ate blockEnd (exclusivo)
+    private final ReentrantLock idLock = new ReentrantLock();
+    private long nextId;
+    private long blockEnd;
+
+    @PostConstruct
+    public void init() {
+        if (count < 1) {
+            throw new IllegalStateException("app.sharding.shards deve ser pelo menos 1: " + count);
+        }
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTemplate.setReadOnly(true);
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.close();
+    }
+
+    //Shard escolhido na thread atual, ou null fora de on() (o ShardRoutingDataSource usa o shard 0)
+    public static Integer currentShard() {
+        return CURRENT.get();
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public boolean isSharded() {
+        return count > 1;
+    }
+
+    //Hash multiplicativo (Fibonacci) do id: ids seguidos, como os de um mesmo bloco da sequence, se espalham entre os shards
+    public int shardOf(long productId) {
+        if (count == 1) {
+            return 0;
+        }
+        return Math.floorMod((int) ((productId * 0x9E3779B97F4A7C15L) >>> 32), count);
+    }
+
+    //Ids agrupados por shard, na ordem em que aparecem em ids
+    public Map<Integer, List<Long>> groupByShard(Collection<Long> ids) {
+        Map<Integer, List<Long>> groups = new TreeMap<>();
+        for (Long id : ids) {
+            groups.computeIfAbsent(shardOf(id), shard -> new ArrayList<>()).add(id);
+        }
+        return groups;
+    }
+
+    //Executa work com as conexoes vindo do shard informado. A conexao eh escolhida na primeira consulta (o DataSource eh lazy),
+    //entao pode ser chamado dentro de uma transacao desde que ela so use esse shard
+    public <T> T on(int shard, Supplier<T> work) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return work.get();
+        }
+        finally {
+            if (previous == null) {
+                CURRENT.remove();
+            }
+            else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    //Transacao propria no shard. Com sharding nao pode ser chamado dentro de outra transacao (ela ja estaria presa a um shard)
+    public <T> T inTransaction(int shard, Supplier<T> work) {
+        return on(shard, () -> transactionTemplate.execute(status -> work.get()));
+    }
+
+    public <T> T inReadOnlyTransaction(int shard, Supplier<T> work) {
+        return on(shard, () -> readOnlyTemplate.execute(status -> work.get()));
+    }
+
+    //Executa work(shard) em todos os shards em paralelo, cada um numa transacao read-only propria, e devolve os resultados
+    //na ordem dos shards. Com um shard so roda na thread atual (e participa da transacao dela, se houver)
+    public <T> List<T> fanOut(IntFunction<T> work) {
+        if (count == 1) {
+            List<T> result = new ArrayList<>(1);
+            result.add(inReadOnlyTransaction(0, () -> work.apply(0)));
+            return result;
+        }
+        //Os contadores de persistencia da requisicao ficam num ThreadLocal: cada tarefa abre os seus e eles sao somados
+        //aos da requisicao depois que todas terminam (o Future.get garante a visibilidade do que a tarefa gravou)
+        PersistenceMetrics requestMetrics = PersistenceMetrics.current();
+        PersistenceMetrics[] taskMetrics = new PersistenceMetrics[count];
+        List<Future<T>> futures = new ArrayList<>(count);
+        for (int shard = 0; shard < count; shard++) {
+            int target = shard;
+            futures.add(executor.submit(() -> {
+                if (requestMetrics != null) {
+                    taskMetrics[target] = PersistenceMetrics.begin();
+                }
+                try {
+                    return inReadOnlyTransaction(target, () -> work.apply(target));
+                }
+                finally {
+                    if (requestMetrics != null) {
+                        PersistenceMetrics.end();
+                    }
+                }
+            }));
+        }
+        List<T> result = new ArrayList<>(count);
+        for (Future<T> future : futures) {
+            result.add(join(future));
+        }
+        if (requestMetrics != null) {
+            for (PersistenceMetrics metrics : taskMetrics) {
+                requestMetrics.merge(metrics);
+            }
+        }
+        return result;
+    }
+
+    //Ids globais com sharding: blocos de ID_BLOCK_SIZE da sequence tb_product_seq do shard 0 (hi/lo), entao so uma
+    //ida ao banco a cada 50 produtos e nenhum id se repete entre shards. Chamado fora de transacao
+    public long nextId() {
+        idLock.lock();
+        try {
+            if (nextId == blockEnd) {
+                nextId = on(0, () -> jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR tb_product_seq", Long.class));
+                blockEnd = nextId + ID_BLOCK_SIZE;
+            }
+            return nextId++;
+        }
+        finally {
+            idLock.unlock();
+        }
+    }
+
+    //Copia tb_category do shard 0 (onde as categorias sao criadas) para os outros, mantendo os ids.
+    //A coluna IDENTITY dos outros shards recomeca depois do maior id, para ficarem iguais ao shard 0
+    public void replicateCategories() {
+        if (!isSharded()) {
+            return;
+        }
+        List<Object[]> rows = on(0, () -> jdbcTemplate.query("SELECT id, name FROM tb_category ORDER BY id",
+                (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getString(2)}));
+        long nextCategoryId = rows.isEmpty() ? 1 : (Long) rows.get(rows.size() - 1)[0] + 1;
+        for (int shard = 1; shard < count; shard++) {
+            inTransaction(shard, () -> {
+                jdbcTemplate.batchUpdate("MERGE INTO tb_category (id, name) KEY (id) VALUES (?, ?)", rows);
+                jdbcTemplate.execute("ALTER TABLE tb_category ALTER COLUMN id RESTART WITH " + nextCategoryId);
+                return null;
+            });
+        }
+    }
+
+    private static <T> T join(Future<T> future) {
+        try {
+            return future.get();
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrompido esperando os shards", e);
+        }
+    }
+}
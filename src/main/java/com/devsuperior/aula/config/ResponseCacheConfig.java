@@ -0,0 +1,26 @@
+package com.devsuperior.aula.config;
+
+import com.devsuperior.aula.controllers.filters.ResponseCacheFilter;
+import com.devsuperior.aula.services.ResponseCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+//Registra o ResponseCacheFilter so nas rotas de leitura de produtos e categorias (desligue com app.http.cache.enabled=false)
+@Configuration
+@ConditionalOnProperty(name = "app.http.cache.enabled", havingValue = "true", matchIfMissing = true)
+public class ResponseCacheConfig {
+
+    @Value("${app.http.cache.max-entry-bytes:262144}")
+    private int maxEntryBytes;
+
+    @Bean
+    public FilterRegistrationBean<ResponseCacheFilter> responseCacheFilter(ResponseCache responseCache) {
+        FilterRegistrationBean<ResponseCacheFilter> registration =
+                new FilterRegistrationBean<>(new ResponseCacheFilter(responseCache, maxEntryBytes));
+        registration.addUrlPatterns("/products", "/products/*", "/categories/*");
+        return registration;
+    }
+}
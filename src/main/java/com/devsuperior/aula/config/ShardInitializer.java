@@ -0,0 +1,97 @@
+package com.devsuperior.aula.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+//Prepara os shards depois que o Hibernate criou o schema e rodou o import.sql no shard 0, antes de o servidor aceitar
+//requisicoes e antes dos listeners de ApplicationReadyEvent (indices em memoria, CatalogGenerator):
+//1. copia o schema do shard 0 (SCRIPT NODATA) para os shards que ainda nao tem as tabelas
+//2. replica tb_category
+//3. move para o shard certo os produtos que estao no shard 0 mas pertencem a outro (os do import.sql ou de um snapshot)
+public class ShardInitializer implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardInitializer.class);
+
+    //Quantos produtos sao movidos por transacao
+    private static final int MOVE_CHUNK_SIZE = 1000;
+
+    private final ProductShards shards;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    public ShardInitializer(ProductShards shards, JdbcTemplate jdbcTemplate) {
+        this.shards = shards;
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        long start = System.nanoTime();
+        copySchema();
+        shards.replicateCategories();
+        long moved = moveMisplacedProducts();
+        logger.info("Shards prontos: {} bancos, {} produtos movidos do shard 0 em {} ms",
+                shards.count(), moved, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void copySchema() {
+        List<String> statements = shards.on(0, () ->
+                jdbcTemplate.queryForList("SCRIPT NODATA NOPASSWORDS NOSETTINGS", String.class));
+        for (int shard = 1; shard < shards.count(); shard++) {
+            boolean exists = shards.on(shard, () -> jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_NAME = 'TB_PRODUCT'", Integer.class)) > 0;
+            if (!exists) {
+                shards.inTransaction(shard, () -> {
+                    for (String statement : statements) {
+                        if (!statement.startsWith("--")) {
+                            jdbcTemplate.execute(statement);
+                        }
+                    }
+                    return null;
+                });
+            }
+        }
+    }
+
+    //Cada pedaco eh gravado no shard de destino e so depois apagado do shard 0
+    private long moveMisplacedProducts() {
+        List<Long> ids = shards.on(0, () -> jdbcTemplate.queryForList("SELECT id FROM tb_product ORDER BY id", Long.class));
+        long moved = 0;
+        for (Map.Entry<Integer, List<Long>> group : shards.groupByShard(ids).entrySet()) {
+            if (group.getKey() == 0) {
+                continue;
+            }
+            List<Long> shardIds = group.getValue();
+            for (int from = 0; from < shardIds.size(); from += MOVE_CHUNK_SIZE) {
+                MapSqlParameterSource params = new MapSqlParameterSource("ids",
+                        shardIds.subList(from, Math.min(from + MOVE_CHUNK_SIZE, shardIds.size())));
+                List<Object[]> products = shards.on(0, () -> namedJdbcTemplate.query(
+                        "SELECT id, name, price FROM tb_product WHERE id IN (:ids)", params,
+                        (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getString(2), rs.getObject(3)}));
+                List<Object[]> links = shards.on(0, () -> namedJdbcTemplate.query(
+                        "SELECT product_id, category_id FROM tb_product_category WHERE product_id IN (:ids)", params,
+                        (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getLong(2)}));
+
+                shards.inTransaction(group.getKey(), () -> {
+                    jdbcTemplate.batchUpdate("INSERT INTO tb_product (id, name, price) VALUES (?, ?, ?)", products);
+                    jdbcTemplate.batchUpdate("INSERT INTO tb_product_category (product_id, category_id) VALUES (?, ?)", links);
+                    return null;
+                });
+                shards.inTransaction(0, () -> {
+                    namedJdbcTemplate.update("DELETE FROM tb_product_category WHERE product_id IN (:ids)", params);
+                    return namedJdbcTemplate.update("DELETE FROM tb_product WHERE id IN (:ids)", params);
+                });
+                moved += products.size();
+            }
+        }
+        return moved;
+    }
+}
@@ -0,0 +1,38 @@
+package com.devsuperior.aula.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//Um pool do Hikari por shard; cada getConnection vem do shard escolhido na thread (ProductShards.on), ou do shard 0.
+//Fica atras de um LazyConnectionDataSourceProxy (ShardingConfig), para a escolha acontecer na primeira consulta e nao no
+//inicio da transacao
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final List<HikariDataSource> shards;
+
+    public ShardRoutingDataSource(List<HikariDataSource> shards) {
+        this.shards = shards;
+        Map<Object, Object> targets = new HashMap<>();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            targets.put(shard, shards.get(shard));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shards.get(0));
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ProductShards.currentShard();
+    }
+
+    public void close() {
+        for (HikariDataSource shard : shards) {
+            shard.close();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.devsuperior.aula.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+//Modo sharding (app.sharding.shards=N, N > 1): no lugar do DataSource unico sobem N bancos H2, um pool para cada.
+//O shard 0 usa a propria spring.datasource.url e os outros a mesma url com o sufixo _shardN no nome do banco
+//(jdbc:h2:mem:testdb -> jdbc:h2:mem:testdb_shard1). O Hibernate cria o schema e roda o import.sql no shard 0, e o
+//ShardInitializer replica o schema e as categorias para os outros e muda os produtos do import.sql para o shard deles
+@Configuration
+@ConditionalOnExpression("${app.sharding.shards:1} > 1")
+public class ShardingConfig {
+
+    @Bean(destroyMethod = "close")
+    public ShardRoutingDataSource shardRoutingDataSource(DataSourceProperties properties, Environment environment,
+                                                         @Value("${app.sharding.shards}") int shards) {
+        List<HikariDataSource> dataSources = new ArrayList<>(shards);
+        for (int shard = 0; shard < shards; shard++) {
+            HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+            //mesmas configuracoes de pool (spring.datasource.hikari.*) em todos os shards
+            Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+            dataSource.setJdbcUrl(shardUrl(properties.determineUrl(), shard));
+            dataSource.setPoolName("shard-" + shard);
+            dataSources.add(dataSource);
+        }
+        return new ShardRoutingDataSource(dataSources);
+    }
+
+    //O DataSource usado pelo JPA, pelos JdbcTemplate e pelas transacoes
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+
+    @Bean
+    public ShardInitializer shardInitializer(ProductShards shards, JdbcTemplate jdbcTemplate) {
+        return new ShardInitializer(shards, jdbcTemplate);
+    }
+
+    static String shardUrl(String url, int shard) {
+        if (shard == 0) {
+            return url;
+        }
+        int options = url.indexOf(';');
+        return options < 0 ? url + "_shard" + shard : url.substring(0, options) + "_shard" + shard + url.substring(options);
+    }
+}
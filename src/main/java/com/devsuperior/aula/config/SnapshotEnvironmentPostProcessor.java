@@ -0,0 +1,59 @@
+package com.devsuperior.aula.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+//Modo de startup por snapshot: com app.snapshot.restore-from=<arquivo .mv.db gerado pelo CatalogSnapshot> a aplicacao
+//nao cria o schema nem roda o import.sql. O arquivo do snapshot eh copiado para um diretorio temporario (cada instancia
+//escreve na sua copia) e o datasource passa a ser esse H2 em arquivo, que ja tem schema, dados e sequences prontos.
+//Como o banco ja esta pronto, o Hibernate tambem nao precisa ler os metadados do JDBC no boot (o banco eh informado direto).
+//Registrado em META-INF/spring.factories porque precisa rodar antes de o datasource ser configurado
+public class SnapshotEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+    public static final String RESTORE_FROM = "app.snapshot.restore-from";
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        String restoreFrom = environment.getProperty(RESTORE_FROM);
+        if (restoreFrom == null || restoreFrom.isBlank()) {
+            return;
+        }
+        Path snapshot = Paths.get(restoreFrom).toAbsolutePath();
+        if (!Files.isRegularFile(snapshot)) {
+            throw new IllegalStateException("Snapshot nao encontrado: " + snapshot);
+        }
+        Path database = copy(snapshot);
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("spring.datasource.url", "jdbc:h2:file:" + CatalogSnapshot.databaseName(database) + ";DB_CLOSE_ON_EXIT=FALSE");
+        properties.put("spring.jpa.hibernate.ddl-auto", "none");
+        properties.put("spring.sql.init.mode", "never");
+        properties.put("spring.jpa.properties.jakarta.persistence.database-product-name", "H2");
+        properties.put("spring.jpa.properties.hibernate.boot.allow_jdbc_metadata_access", "false");
+        environment.getPropertySources().addFirst(new MapPropertySource("catalogSnapshot", properties));
+    }
+
+    private Path copy(Path snapshot) {
+        try {
+            Path directory = Files.createTempDirectory("aula-snapshot");
+            Path database = directory.resolve(CatalogSnapshot.FILE_NAME);
+            Files.copy(snapshot, database);
+            directory.toFile().deleteOnExit();
+            database.toFile().deleteOnExit();
+            return database;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Nao foi possivel copiar o snapshot " + snapshot, e);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.devsuperior.aula.controllers;
+
+import com.devsuperior.aula.dto.BulkOperationResultDTO;
+import com.devsuperior.aula.dto.CategoryLinkRequestDTO;
+import com.devsuperior.aula.dto.CategoryRepriceRequestDTO;
+import com.devsuperior.aula.dto.CategoryStatsDTO;
+import com.devsuperior.aula.dto.ProductDTO;
+import com.devsuperior.aula.services.CategoryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping(value = "/categories")
+public class CategoryController {
+
+    @Autowired
+    private CategoryService service;
+
+    //Quantidade, preco minimo, maximo, medio e total dos produtos de cada categoria
+    @GetMapping(value = "/stats")
+    public ResponseEntity<List<CategoryStatsDTO>> findStats() {
+        List<CategoryStatsDTO> stats = service.findStats();
+        return ResponseEntity.ok(stats);
+    }
+
+    //Produtos da categoria com preco entre minPrice e maxPrice (os dois opcionais), ordenados por preco
+    @GetMapping(value = "/{id}/products")
+    public ResponseEntity<List<ProductDTO>> findProducts(@PathVariable Long id,
+                                                         @RequestParam(required = false) Double minPrice,
+                                                         @RequestParam(required = false) Double maxPrice,
+                                                         @RequestParam(defaultValue = "100") int limit) {
+        List<ProductDTO> products = service.findProductsByPriceRange(id, minPrice, maxPrice, limit);
+        return ResponseEntity.ok(products);
+    }
+
+    //Vincula produtos a categoria em massa: {"productIds": [1, 2, 3]} ou um filtro {"minPrice": 100, "maxPrice": 500, "fromCategoryId": 2}
+    @PostMapping(value = "/{id}/products:link")
+    public ResponseEntity<BulkOperationResultDTO> linkProducts(@PathVariable Long id, @RequestBody CategoryLinkRequestDTO request) {
+        BulkOperationResultDTO result = service.linkProducts(id, request);
+        return ResponseEntity.ok(result);
+    }
+
+    //Reajusta o preco de todos os produtos da categoria: {"percent": 10}
+    @PostMapping(value = "/{id}/products:reprice")
+    public ResponseEntity<BulkOperationResultDTO> repriceProducts(@PathVariable Long id, @RequestBody CategoryRepriceRequestDTO request) {
+        BulkOperationResultDTO result = service.repriceProducts(id, request);
+        return ResponseEntity.ok(result);
+    }
+}
@@ -1,16 +1,41 @@
 package com.devsuperior.aula.controllers;
 
+import com.devsuperior.aula.services.ProductExportService;
+import com.devsuperior.aula.services.ProductIngestionQueue;
 import com.devsuperior.aula.services.ProductService;
+import com.devsuperior.aula.dto.IngestionTicketDTO;
+import com.devsuperior.aula.dto.ProductBatchResultDTO;
+import com.devsuperior.aula.dto.ProductCursorPageDTO;
 import com.devsuperior.aula.dto.ProductDTO;
+import com.devsuperior.aula.dto.ProductImportSummaryDTO;
+import com.devsuperior.aula.dto.ProductSearchResultDTO;
+import com.devsuperior.aula.services.exceptions.InvalidDataException;
+import com.devsuperior.aula.services.exceptions.ResourceNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping(value = "/products")
@@ -21,13 +46,148 @@ public class ProductController {
     //Quando essa classe (ProductController) for criada, injete automaticamente uma instância do ProductService nesse campo.
     private ProductService service; //declarei a classe ProductService como dependencia
 
+    //Fila de gravacao usada no modo assincrono do POST /products (app.ingestion.async.enabled=true)
+    @Autowired
+    private ProductIngestionQueue ingestionQueue;
+
+    @Autowired
+    private ProductExportService exportService;
+
+    //Listagem paginada (?page=0&size=20&sort=name). Por padrao ordena pelo id
+    @GetMapping
+    public ResponseEntity<Page<ProductDTO>> findAll(@PageableDefault(sort = "id") Pageable pageable) {
+        Page<ProductDTO> page = service.findAll(pageable);
+        return ResponseEntity.ok(page);
+    }
+
+    //Listagem por cursor para varrer o catalogo inteiro (?limit=100&after=<nextCursor da pagina anterior>&categoryId=3).
+    //Entra nesse metodo sempre que a requisicao tem o parametro limit
+    @GetMapping(params = "limit")
+    public ResponseEntity<ProductCursorPageDTO> findAfter(@RequestParam(required = false) String after,
+                                                         @RequestParam int limit,
+                                                         @RequestParam(required = false) Long categoryId) {
+        ProductCursorPageDTO page = service.findAfter(after, limit, categoryId);
+        return ResponseEntity.ok(page);
+    }
+
+    //Busca por nome: GET /products/search?q=mac&limit=10, ordenado por relevancia
+    @GetMapping(value = "/search")
+    public ResponseEntity<List<ProductSearchResultDTO>> search(@RequestParam String q, @RequestParam(defaultValue = "10") int limit) {
+        List<ProductSearchResultDTO> result = service.search(q, limit);
+        return ResponseEntity.ok(result);
+    }
+
+    //Export do catalogo inteiro em streaming: GET /products/export?format=csv&afterId=5000 (format ndjson por padrao).
+    //afterId permite export incremental (so os produtos criados depois do ultimo id exportado). Com Accept-Encoding: gzip
+    //a saida eh comprimida enquanto eh escrita
+    @GetMapping(value = "/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = ProductExportService.NDJSON) String format,
+                                                        @RequestParam(required = false) Long afterId,
+                                                        @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        if (!ProductExportService.isSupported(format)) {
+            throw new InvalidDataException("Formato de export invalido: " + format + " (use ndjson ou csv)");
+        }
+        boolean gzip = acceptsGzip(acceptEncoding);
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, 64 * 1024);
+                exportService.export(compressed, format, afterId);
+                compressed.finish();
+            }
+            else {
+                exportService.export(out, format, afterId);
+            }
+        };
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(ProductExportService.CSV.equals(format)
+                        ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                        : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    //Le o Accept-Encoding como lista de "codificacao;q=peso": gzip vale se aparecer com peso maior que zero, ou, se nao
+    //aparecer, se "*" aparecer com peso maior que zero. Peso ausente vale 1 e peso invalido conta como recusa
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipWeight = null;
+        Double anyWeight = null;
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parts = entry.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            double weight = 1.0;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.length() > 2 && (param.charAt(0) == 'q' || param.charAt(0) == 'Q') && param.charAt(1) == '=') {
+                    try {
+                        weight = Double.parseDouble(param.substring(2).trim());
+                    }
+                    catch (NumberFormatException e) {
+                        weight = 0.0;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzipWeight = gzipWeight == null ? weight : Math.max(gzipWeight, weight);
+            }
+            else if (coding.equals("*")) {
+                anyWeight = weight;
+            }
+        }
+        if (gzipWeight != null) {
+            return gzipWeight > 0;
+        }
+        return anyWeight != null && anyWeight > 0;
+    }
+
+    @GetMapping(value = "/{id}")
+    public ResponseEntity<ProductDTO> findById(@PathVariable Long id) {
+        ProductDTO dto = service.findById(id);
+        return ResponseEntity.ok(dto);
+    }
+
     //Recebe como corpo da requisicao o ProductDTO
     //Vai casar com o ProductDTO recebido como parametro abaixo, vai fazer os processos do metodo e vai criar o objeto java
+    //No modo assincrono o produto so eh validado e vai para a fila: a resposta eh 202 com o ticket para acompanhar a gravacao
     @PostMapping
-    public ResponseEntity<ProductDTO> insert(@RequestBody ProductDTO dto) {
+    public ResponseEntity<?> insert(@RequestBody ProductDTO dto) {
+        if (ingestionQueue.isEnabled()) {
+            IngestionTicketDTO ticket = ingestionQueue.submit(dto);
+            URI uri = ServletUriComponentsBuilder.fromCurrentRequest().path("/tickets/{id}").buildAndExpand(ticket.getId()).toUri();
+            return ResponseEntity.accepted().location(uri).body(ticket);
+        }
         dto = service.insert(dto);
         URI uri = ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}").buildAndExpand(dto.getId()).toUri(); //gerando o codigo certo de erro
         return ResponseEntity.created(uri).body(dto);
     }
 
+    //Situacao de um produto enviado no modo assincrono
+    @GetMapping(value = "/tickets/{id}")
+    public ResponseEntity<IngestionTicketDTO> findTicket(@PathVariable String id) {
+        IngestionTicketDTO ticket = ingestionQueue.findTicket(id);
+        if (ticket == null) {
+            throw new ResourceNotFoundException("Ticket nao encontrado: " + id);
+        }
+        return ResponseEntity.ok(ticket);
+    }
+
+    //Recebe uma lista de produtos de uma vez. Os que foram gravados e os que deram erro (com a posicao na lista) voltam na resposta
+    @PostMapping(value = "/batch")
+    public ResponseEntity<ProductBatchResultDTO> insertAll(@RequestBody List<ProductDTO> dtos) {
+        ProductBatchResultDTO result = service.insertAll(dtos);
+        return ResponseEntity.ok(result);
+    }
+
+    //Import de arquivos grandes: o corpo eh NDJSON (um produto em JSON por linha) e eh lido em streaming, sem montar a lista inteira na memoria
+    @PostMapping(value = "/import", consumes = "application/x-ndjson")
+    public ResponseEntity<ProductImportSummaryDTO> importProducts(InputStream body) throws IOException {
+        ProductImportSummaryDTO summary = service.importStream(body);
+        return ResponseEntity.ok(summary);
+    }
+
 }
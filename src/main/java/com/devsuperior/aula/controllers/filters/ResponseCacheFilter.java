@@ -0,0 +1,134 @@
+package com.devsuperior.aula.controllers.filters;
+
+import com.devsuperior.aula.services.ResponseCache;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+//Cache HTTP dos GETs de /products e /categories com ETag forte (MD5 dos bytes da resposta).
+//Se a resposta esta no ResponseCache, um If-None-Match igual ao ETag recebe 304 e um pedido sem ele recebe os bytes guardados,
+//nos dois casos sem passar pelo controller, pelo banco ou pelo Jackson. Senao a resposta eh gerada normalmente e,
+//se for 200 e nao passar de maxEntryBytes, vai para o cache. A chave inclui o Accept porque o corpo depende dele.
+//Nao passam por aqui: tickets da gravacao assincrona (mudam sem insert) e o export (streaming, grande demais)
+public class ResponseCacheFilter extends OncePerRequestFilter {
+
+    private static final Pattern PRODUCT = Pattern.compile("^/products/(\\d+)$");
+    private static final Pattern CATEGORY_PRODUCTS = Pattern.compile("^/categories/(\\d+)/products$");
+
+    private final ResponseCache cache;
+    private final int maxEntryBytes;
+
+    public ResponseCacheFilter(ResponseCache cache, int maxEntryBytes) {
+        this.cache = cache;
+        this.maxEntryBytes = maxEntryBytes;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = path(request);
+        return !"GET".equals(request.getMethod())
+                || path.startsWith("/products/tickets/")
+                || path.startsWith("/products/export");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String key = key(request);
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+
+        ResponseCache.Entry cached = cache.get(key);
+        if (cached != null) {
+            write(response, cached, ifNoneMatch);
+            return;
+        }
+
+        long version = cache.version();
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        filterChain.doFilter(request, wrapper);
+
+        if (wrapper.getStatus() != HttpServletResponse.SC_OK || wrapper.getContentSize() > maxEntryBytes
+                || request.isAsyncStarted()) {
+            wrapper.copyBodyToResponse();
+            return;
+        }
+        byte[] body = wrapper.getContentAsByteArray();
+        ResponseCache.Entry entry = new ResponseCache.Entry(body, wrapper.getContentType(),
+                "\"" + DigestUtils.md5DigestAsHex(body) + "\"", tags(path(request)));
+        cache.put(key, entry, version);
+
+        wrapper.setHeader(HttpHeaders.ETAG, entry.etag());
+        wrapper.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        if (matches(ifNoneMatch, entry.etag())) {
+            cache.recordNotModified();
+            wrapper.resetBuffer();
+            wrapper.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    private void write(HttpServletResponse response, ResponseCache.Entry entry, String ifNoneMatch) throws IOException {
+        response.setHeader(HttpHeaders.ETAG, entry.etag());
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        if (matches(ifNoneMatch, entry.etag())) {
+            cache.recordNotModified();
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        if (entry.contentType() != null) {
+            response.setContentType(entry.contentType());
+        }
+        response.setContentLength(entry.body().length);
+        response.getOutputStream().write(entry.body());
+    }
+
+    //If-None-Match pode ter varios ETags separados por virgula, fracos (W/"...") ou *
+    private boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Set<String> tags(String path) {
+        Matcher product = PRODUCT.matcher(path);
+        if (product.matches()) {
+            return Set.of(ResponseCache.productTag(Long.valueOf(product.group(1))));
+        }
+        Matcher category = CATEGORY_PRODUCTS.matcher(path);
+        if (category.matches()) {
+            return Set.of(ResponseCache.categoryTag(Long.valueOf(category.group(1))));
+        }
+        return Set.of(ResponseCache.COLLECTIONS_TAG);
+    }
+
+    private String key(HttpServletRequest request) {
+        String query = request.getQueryString();
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        return path(request) + (query == null ? "" : "?" + query) + "|" + (accept == null ? "*/*" : accept);
+    }
+
+    private String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+}
@@ -0,0 +1,41 @@
+package com.devsuperior.aula.controllers.handlers;
+
+import com.devsuperior.aula.dto.CustomError;
+import com.devsuperior.aula.services.exceptions.InvalidDataException;
+import com.devsuperior.aula.services.exceptions.QueueFullException;
+import com.devsuperior.aula.services.exceptions.ResourceNotFoundException;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+
+import java.time.Instant;
+
+//Transforma as excecoes da camada de servico em respostas HTTP com o corpo padrao CustomError
+@ControllerAdvice
+public class ControllerExceptionHandler {
+
+    @ExceptionHandler(ResourceNotFoundException.class)
+    public ResponseEntity<CustomError> resourceNotFound(ResourceNotFoundException e, HttpServletRequest request) {
+        HttpStatus status = HttpStatus.NOT_FOUND;
+        CustomError err = new CustomError(Instant.now(), status.value(), e.getMessage(), request.getRequestURI());
+        return ResponseEntity.status(status).body(err);
+    }
+
+    @ExceptionHandler(InvalidDataException.class)
+    public ResponseEntity<CustomError> invalidData(InvalidDataException e, HttpServletRequest request) {
+        HttpStatus status = HttpStatus.UNPROCESSABLE_ENTITY;
+        CustomError err = new CustomError(Instant.now(), status.value(), e.getMessage(), request.getRequestURI());
+        return ResponseEntity.status(status).body(err);
+    }
+
+    //Backpressure da gravacao assincrona: o cliente deve tentar de novo depois do Retry-After
+    @ExceptionHandler(QueueFullException.class)
+    public ResponseEntity<CustomError> queueFull(QueueFullException e, HttpServletRequest request) {
+        HttpStatus status = HttpStatus.SERVICE_UNAVAILABLE;
+        CustomError err = new CustomError(Instant.now(), status.value(), e.getMessage(), request.getRequestURI());
+        return ResponseEntity.status(status).header(HttpHeaders.RETRY_AFTER, "1").body(err);
+    }
+}
@@ -0,0 +1,19 @@
+package com.devsuperior.aula.dto;
+
+//Resposta das operacoes em massa de categoria: quantas linhas foram alteradas no banco
+public class BulkOperationResultDTO {
+
+    private long affectedRows;
+
+    public BulkOperationResultDTO() {
+
+    }
+
+    public BulkOperationResultDTO(long affectedRows) {
+        this.affectedRows = affectedRows;
+    }
+
+    public long getAffectedRows() {
+        return affectedRows;
+    }
+}
@@ -23,7 +23,7 @@ public class CategoryDTO {
         this.name = entity.getName();
     }
 
-    public long getId() {
+    public Long getId() {
         return id;
     }
 
@@ -0,0 +1,54 @@
+package com.devsuperior.aula.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//Corpo de POST /categories/{id}/products:link. Ou a lista de ids dos produtos, ou um filtro
+//(faixa de preco e/ou produtos de outra categoria). Com os dois vazios nenhum produto eh vinculado
+public class CategoryLinkRequestDTO {
+
+    private List<Long> productIds = new ArrayList<>();
+    private Double minPrice;
+    private Double maxPrice;
+    private Long fromCategoryId;
+
+    public CategoryLinkRequestDTO() {
+
+    }
+
+    public List<Long> getProductIds() {
+        return productIds;
+    }
+
+    public void setProductIds(List<Long> productIds) {
+        this.productIds = productIds;
+    }
+
+    public Double getMinPrice() {
+        return minPrice;
+    }
+
+    public void setMinPrice(Double minPrice) {
+        this.minPrice = minPrice;
+    }
+
+    public Double getMaxPrice() {
+        return maxPrice;
+    }
+
+    public void setMaxPrice(Double maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+
+    public Long getFromCategoryId() {
+        return fromCategoryId;
+    }
+
+    public void setFromCategoryId(Long fromCategoryId) {
+        this.fromCategoryId = fromCategoryId;
+    }
+
+    public boolean hasFilter() {
+        return minPrice != null || maxPrice != null || fromCategoryId != null;
+    }
+}
@@ -0,0 +1,23 @@
+package com.devsuperior.aula.dto;
+
+//Corpo de POST /categories/{id}/products:reprice: percentual aplicado ao preco de todos os produtos da categoria (10 = +10%, -5 = -5%)
+public class CategoryRepriceRequestDTO {
+
+    private Double percent;
+
+    public CategoryRepriceRequestDTO() {
+
+    }
+
+    public CategoryRepriceRequestDTO(Double percent) {
+        this.percent = percent;
+    }
+
+    public Double getPercent() {
+        return percent;
+    }
+
+    public void setPercent(Double percent) {
+        this.percent = percent;
+    }
+}
@@ -0,0 +1,55 @@
+package com.devsuperior.aula.dto;
+
+//Linha de GET /categories/stats: resumo dos precos dos produtos de uma categoria
+public class CategoryStatsDTO {
+
+    private Long categoryId;
+    private String categoryName;
+    private long count;
+    private Double minPrice;
+    private Double maxPrice;
+    private Double avgPrice;
+    private Double totalPrice;
+
+    public CategoryStatsDTO() {
+
+    }
+
+    public CategoryStatsDTO(Long categoryId, String categoryName, long count, Double minPrice, Double maxPrice, Double totalPrice) {
+        this.categoryId = categoryId;
+        this.categoryName = categoryName;
+        this.count = count;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.avgPrice = count == 0 ? null : totalPrice / count;
+        this.totalPrice = totalPrice;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public Double getMinPrice() {
+        return minPrice;
+    }
+
+    public Double getMaxPrice() {
+        return maxPrice;
+    }
+
+    public Double getAvgPrice() {
+        return avgPrice;
+    }
+
+    public Double getTotalPrice() {
+        return totalPrice;
+    }
+}
@@ -0,0 +1,38 @@
+package com.devsuperior.aula.dto;
+
+//Situacao de um produto enviado no modo assincrono de POST /products.
+//status: PENDING (na fila), INSERTED (gravado, productId preenchido) ou REJECTED (error com o motivo)
+public class IngestionTicketDTO {
+
+    private String id;
+    private String status;
+    private Long productId;
+    private String error;
+
+    public IngestionTicketDTO() {
+
+    }
+
+    public IngestionTicketDTO(String id, String status, Long productId, String error) {
+        this.id = id;
+        this.status = status;
+        this.productId = productId;
+        this.error = error;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,25 @@
+package com.devsuperior.aula.dto;
+
+//Erro de um item do lote: a posicao do produto na lista recebida e o motivo da rejeicao
+public class ProductBatchErrorDTO {
+
+    private int index;
+    private String message;
+
+    public ProductBatchErrorDTO() {
+
+    }
+
+    public ProductBatchErrorDTO(int index, String message) {
+        this.index = index;
+        this.message = message;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,23 @@
+package com.devsuperior.aula.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//Resposta de POST /products/batch: os produtos que foram gravados e os itens que foram rejeitados
+public class ProductBatchResultDTO {
+
+    private List<ProductDTO> inserted = new ArrayList<>();
+    private List<ProductBatchErrorDTO> errors = new ArrayList<>();
+
+    public ProductBatchResultDTO() {
+
+    }
+
+    public List<ProductDTO> getInserted() {
+        return inserted;
+    }
+
+    public List<ProductBatchErrorDTO> getErrors() {
+        return errors;
+    }
+}
@@ -0,0 +1,27 @@
+package com.devsuperior.aula.dto;
+
+import java.util.List;
+
+//Pagina da listagem por cursor. nextCursor vai no ?after= da proxima chamada e eh null quando nao ha mais produtos
+public class ProductCursorPageDTO {
+
+    private List<ProductDTO> content;
+    private String nextCursor;
+
+    public ProductCursorPageDTO() {
+
+    }
+
+    public ProductCursorPageDTO(List<ProductDTO> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<ProductDTO> getContent() {
+        return content;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
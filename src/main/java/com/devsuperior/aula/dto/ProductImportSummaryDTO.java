@@ -0,0 +1,46 @@
+package com.devsuperior.aula.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//Resumo de POST /products/import. So os primeiros erros sao guardados (o total fica em rejected) para a resposta nao crescer junto com o arquivo
+public class ProductImportSummaryDTO {
+
+    private long inserted;
+    private long rejected;
+    private long elapsedMillis;
+    private double rowsPerSecond;
+    private List<ProductBatchErrorDTO> errors = new ArrayList<>();
+
+    public ProductImportSummaryDTO() {
+
+    }
+
+    public ProductImportSummaryDTO(long inserted, long rejected, long elapsedMillis, double rowsPerSecond, List<ProductBatchErrorDTO> errors) {
+        this.inserted = inserted;
+        this.rejected = rejected;
+        this.elapsedMillis = elapsedMillis;
+        this.rowsPerSecond = rowsPerSecond;
+        this.errors = errors;
+    }
+
+    public long getInserted() {
+        return inserted;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public double getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    public List<ProductBatchErrorDTO> getErrors() {
+        return errors;
+    }
+}
@@ -0,0 +1,37 @@
+package com.devsuperior.aula.dto;
+
+//Resultado de GET /products/search: dados do produto que ficam no indice de busca e a pontuacao usada na ordenacao
+public class ProductSearchResultDTO {
+
+    private Long id;
+    private String name;
+    private Double price;
+    private int score;
+
+    public ProductSearchResultDTO() {
+
+    }
+
+    public ProductSearchResultDTO(Long id, String name, Double price, int score) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.score = score;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Double getPrice() {
+        return price;
+    }
+
+    public int getScore() {
+        return score;
+    }
+}
@@ -0,0 +1,20 @@
+package com.devsuperior.aula.entities;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+//Id vindo de uma sequence pooled (como @SequenceGenerator), mas que respeita um id ja preenchido na entidade.
+//Veja AssignableSequenceGenerator
+@IdGeneratorType(AssignableSequenceGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface AssignableSequence {
+
+    String sequenceName();
+
+    int allocationSize() default 50;
+}
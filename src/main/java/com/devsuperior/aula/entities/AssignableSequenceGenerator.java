@@ -0,0 +1,41 @@
+package com.devsuperior.aula.entities;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.EventType;
+import org.hibernate.id.OptimizableGenerator;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+//A mesma sequence pooled do @SequenceGenerator (mesmo DDL e mesmo otimizador), com uma diferenca: se a entidade ja chega
+//no persist com id, o Hibernate usa esse id em vez de gerar outro. Com sharding (ProductShards) o id do produto eh
+//reservado antes da gravacao, porque eh ele que decide em qual banco o produto vai ficar
+public class AssignableSequenceGenerator extends SequenceStyleGenerator {
+
+    private final AssignableSequence config;
+
+    public AssignableSequenceGenerator(AssignableSequence config) {
+        this.config = config;
+    }
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) {
+        parameters.put(SEQUENCE_PARAM, config.sequenceName());
+        parameters.put(OptimizableGenerator.INCREMENT_PARAM, String.valueOf(config.allocationSize()));
+        super.configure(type, parameters, serviceRegistry);
+    }
+
+    @Override
+    public boolean allowAssignedIdentifiers() {
+        return true;
+    }
+
+    //O persist chama o gerador mesmo com o id preenchido (e sem passar esse id em currentValue), entao ele eh lido da entidade
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue, EventType eventType) {
+        Object assigned = session.getEntityPersister(null, owner).getIdentifier(owner, session);
+        return assigned != null ? assigned : super.generate(session, owner, currentValue, eventType);
+    }
+}
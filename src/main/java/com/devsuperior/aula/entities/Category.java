@@ -1,5 +1,6 @@
 package com.devsuperior.aula.entities;
 
+import com.devsuperior.aula.services.CategoryCacheListener;
 import jakarta.persistence.*;
 
 import java.util.HashSet;
@@ -7,6 +8,7 @@ import java.util.Set;
 
 @Entity
 @Table(name = "tb_category")
+@EntityListeners(CategoryCacheListener.class) //mantem o CategoryCache atualizado quando uma categoria muda
 public class Category {
 
     @Id
@@ -9,8 +9,11 @@ import java.util.Set;
 @Table(name = "tb_product")
 public class Product {
 
+    //Com IDENTITY o Hibernate precisa executar cada INSERT na hora para descobrir o id gerado, o que impede o batch de JDBC.
+    //Com uma sequence "pooled" ele reserva 50 ids por ida ao banco e consegue agrupar os INSERTs em lotes.
+    //Com sharding o id ja vem preenchido (reservado pelo ProductShards) e a sequence nao eh usada (AssignableSequence)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @AssignableSequence(sequenceName = "tb_product_seq", allocationSize = 50)
     private Long id;
     private String name;
     private Double price;
@@ -20,7 +23,8 @@ public class Product {
     @ManyToMany //Indicando que o atributo abaixo faz parte de um Relacionamento muito para muitos
     @JoinTable(name = "tb_product_category", // o nome da tabela do meio vai ser tb_product_category
             joinColumns = @JoinColumn(name = "product_id"), //vai juntar o product_id na nova tabela. Eh o product_id pq eh na classe que voce esta
-            inverseJoinColumns = @JoinColumn(name = "category_id")) //vai juntar o category_id na nova tabela tambem
+            inverseJoinColumns = @JoinColumn(name = "category_id"), //vai juntar o category_id na nova tabela tambem
+            indexes = @Index(name = "idx_product_category_category", columnList = "category_id, product_id")) //usado na listagem por cursor filtrada por categoria
     private Set<Category> categories = new HashSet<>(); //Tenho uma colecao de categorias dentro de produtos
 
     public Product() {
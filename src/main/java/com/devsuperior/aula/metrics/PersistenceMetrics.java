@@ -0,0 +1,122 @@
+package com.devsuperior.aula.metrics;
+
+//Contadores de persistencia de uma requisicao. Ficam num ThreadLocal aberto pelo PersistenceMetricsInterceptor
+//e sao alimentados pelo SqlStatementInspector e pelo PersistenceSessionEventListener, que o Hibernate instancia por conta propria
+public class PersistenceMetrics {
+
+    private static final ThreadLocal<PersistenceMetrics> CURRENT = new ThreadLocal<>();
+
+    private final long startNanos = System.nanoTime();
+    private long selects;
+    private long inserts;
+    private long updates;
+    private long deletes;
+    private long others;
+    private long jdbcNanos;
+    private long flushNanos;
+    private long categoryRows;
+
+    public static PersistenceMetrics begin() {
+        PersistenceMetrics metrics = new PersistenceMetrics();
+        CURRENT.set(metrics);
+        return metrics;
+    }
+
+    public static PersistenceMetrics end() {
+        PersistenceMetrics metrics = CURRENT.get();
+        CURRENT.remove();
+        return metrics;
+    }
+
+    //null fora de uma requisicao medida (ex: rebuild dos indices na subida)
+    public static PersistenceMetrics current() {
+        return CURRENT.get();
+    }
+
+    public static void recordCategoryRows(long rows) {
+        PersistenceMetrics metrics = CURRENT.get();
+        if (metrics != null) {
+            metrics.categoryRows += rows;
+        }
+    }
+
+    //Soma os contadores de uma tarefa que rodou em outra thread em nome desta requisicao (ex: ProductShards.fanOut).
+    //Com tarefas em paralelo o tempo de JDBC somado pode passar do tempo da requisicao
+    public void merge(PersistenceMetrics other) {
+        selects += other.selects;
+        inserts += other.inserts;
+        updates += other.updates;
+        deletes += other.deletes;
+        others += other.others;
+        jdbcNanos += other.jdbcNanos;
+        flushNanos += other.flushNanos;
+        categoryRows += other.categoryRows;
+    }
+
+    void recordStatement(String sql) {
+        String verb = firstWord(sql);
+        switch (verb) {
+            case "select", "with" -> selects++;
+            case "insert" -> inserts++;
+            case "update" -> updates++;
+            case "delete" -> deletes++;
+            default -> others++;
+        }
+    }
+
+    void addJdbcNanos(long nanos) {
+        jdbcNanos += nanos;
+    }
+
+    void addFlushNanos(long nanos) {
+        flushNanos += nanos;
+    }
+
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    public long getSelects() {
+        return selects;
+    }
+
+    public long getInserts() {
+        return inserts;
+    }
+
+    public long getUpdates() {
+        return updates;
+    }
+
+    public long getDeletes() {
+        return deletes;
+    }
+
+    public long getOthers() {
+        return others;
+    }
+
+    public long getJdbcNanos() {
+        return jdbcNanos;
+    }
+
+    public long getFlushNanos() {
+        return flushNanos;
+    }
+
+    public long getCategoryRows() {
+        return categoryRows;
+    }
+
+    private static String firstWord(String sql) {
+        int start = 0;
+        while (start < sql.length() && !Character.isLetter(sql.charAt(start))) {
+            start++;
+        }
+        int end = start;
+        while (end < sql.length() && Character.isLetter(sql.charAt(end))) {
+            end++;
+        }
+        return sql.substring(start, end).toLowerCase();
+    }
+}
@@ -0,0 +1,56 @@
+package com.devsuperior.aula.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.concurrent.TimeUnit;
+
+//Abre os contadores de persistencia no inicio da requisicao e publica no Micrometer quando ela termina:
+//  persistence.statements (por type: select, insert, update, delete, other), persistence.jdbc.time, persistence.request.time,
+//  persistence.flush.time e persistence.product_category.rows, todos com as tags method e uri (o padrao da rota, ex: /products/{id})
+public class PersistenceMetricsInterceptor implements HandlerInterceptor {
+
+    private final MeterRegistry registry;
+
+    public PersistenceMetricsInterceptor(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        PersistenceMetrics.begin();
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        PersistenceMetrics metrics = PersistenceMetrics.end();
+        if (metrics == null) {
+            return;
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        Tags tags = Tags.of("method", request.getMethod(), "uri", pattern == null ? "UNKNOWN" : pattern.toString());
+
+        statements(tags, "select", metrics.getSelects());
+        statements(tags, "insert", metrics.getInserts());
+        statements(tags, "update", metrics.getUpdates());
+        statements(tags, "delete", metrics.getDeletes());
+        statements(tags, "other", metrics.getOthers());
+        Timer.builder("persistence.jdbc.time").tags(tags).register(registry).record(metrics.getJdbcNanos(), TimeUnit.NANOSECONDS);
+        Timer.builder("persistence.flush.time").tags(tags).register(registry).record(metrics.getFlushNanos(), TimeUnit.NANOSECONDS);
+        Timer.builder("persistence.request.time").tags(tags).register(registry)
+                .record(System.nanoTime() - metrics.getStartNanos(), TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("persistence.product_category.rows").tags(tags).register(registry)
+                .record(metrics.getCategoryRows());
+    }
+
+    private void statements(Tags tags, String type, long count) {
+        DistributionSummary.builder("persistence.statements").tags(tags).tag("type", type).register(registry).record(count);
+    }
+}
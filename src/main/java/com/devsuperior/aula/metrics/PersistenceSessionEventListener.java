@@ -0,0 +1,53 @@
+package com.devsuperior.aula.metrics;
+
+import org.hibernate.BaseSessionEventListener;
+
+//O Hibernate cria um desses por Session (configurado em hibernate.session.events.auto).
+//Mede o tempo gasto executando statements/batches no JDBC e o tempo de flush, e passa cada execucao para o SqlLogger
+public class PersistenceSessionEventListener extends BaseSessionEventListener {
+
+    private long executeStart;
+    private long flushStart;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        executeStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        executed();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        executeStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        executed();
+    }
+
+    @Override
+    public void flushStart() {
+        flushStart = System.nanoTime();
+    }
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        PersistenceMetrics metrics = PersistenceMetrics.current();
+        if (metrics != null) {
+            metrics.addFlushNanos(System.nanoTime() - flushStart);
+        }
+    }
+
+    private void executed() {
+        long nanos = System.nanoTime() - executeStart;
+        PersistenceMetrics metrics = PersistenceMetrics.current();
+        if (metrics != null) {
+            metrics.addJdbcNanos(nanos);
+        }
+        SqlLogger.statementExecuted(nanos);
+    }
+}
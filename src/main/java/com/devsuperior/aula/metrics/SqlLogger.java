@@ -0,0 +1,49 @@
+package com.devsuperior.aula.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+//Log de SQL amostrado e estruturado, no lugar do spring.jpa.show-sql (que imprime todo statement formatado no stdout).
+//Statements mais lentos que o limite sempre sao logados em WARN; os demais so entram em DEBUG numa fracao sampleRate.
+//Os campos (durationMs, sql) vao como key-values do SLF4J, que aparecem como campos no log estruturado (logging.structured.format.*).
+//A configuracao eh estatica porque quem chama sao classes que o Hibernate instancia, fora do Spring (ver PersistenceMetricsConfig)
+public final class SqlLogger {
+
+    private static final Logger logger = LoggerFactory.getLogger("com.devsuperior.aula.sql");
+
+    //SQL do ultimo statement preparado nesta thread, para o log saber o que foi executado
+    private static final ThreadLocal<String> LAST_SQL = new ThreadLocal<>();
+
+    private static volatile double sampleRate = 0.0;
+    private static volatile long slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(200);
+
+    private SqlLogger() {
+    }
+
+    public static void configure(double sampleRate, long slowThresholdMillis) {
+        SqlLogger.sampleRate = sampleRate;
+        SqlLogger.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis);
+    }
+
+    static void statementPrepared(String sql) {
+        LAST_SQL.set(sql);
+    }
+
+    static void statementExecuted(long nanos) {
+        if (nanos >= slowThresholdNanos) {
+            long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+            String sql = LAST_SQL.get();
+            logger.atWarn().addKeyValue("event", "slow_sql").addKeyValue("durationMs", millis).addKeyValue("sql", sql)
+                    .log("SQL lento ({} ms): {}", millis, sql);
+        }
+        else if (logger.isDebugEnabled() && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            double millis = nanos / 1_000_000.0;
+            String sql = LAST_SQL.get();
+            logger.atDebug().addKeyValue("event", "sql").addKeyValue("durationMs", millis).addKeyValue("sql", sql)
+                    .log("SQL ({} ms): {}", millis, sql);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.devsuperior.aula.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+//Chamado pelo Hibernate a cada statement preparado (configurado em hibernate.session_factory.statement_inspector).
+//Conta o statement por tipo na requisicao atual e guarda o SQL para o log de SQL lento. Nao altera o SQL.
+//Com batch de JDBC um statement preparado pode gravar varias linhas: a contagem eh de statements, nao de linhas
+public class SqlStatementInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        PersistenceMetrics metrics = PersistenceMetrics.current();
+        if (metrics != null) {
+            metrics.recordStatement(sql);
+        }
+        SqlLogger.statementPrepared(sql);
+        return sql;
+    }
+}
@@ -0,0 +1,41 @@
+package com.devsuperior.aula.projections;
+
+//Uma linha do LEFT JOIN de produto com categoria, montada direto pela consulta (SELECT new ...).
+//Nao eh entidade: o Hibernate nao guarda no contexto de persistencia nem tira snapshot para dirty checking.
+//Um produto com 3 categorias vira 3 linhas; o ProductService agrupa por productId. Sem categorias, categoryId vem null
+public class ProductCategoryRow {
+
+    private final Long productId;
+    private final String productName;
+    private final Double price;
+    private final Long categoryId;
+    private final String categoryName;
+
+    public ProductCategoryRow(Long productId, String productName, Double price, Long categoryId, String categoryName) {
+        this.productId = productId;
+        this.productName = productName;
+        this.price = price;
+        this.categoryId = categoryId;
+        this.categoryName = categoryName;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public Double getPrice() {
+        return price;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public String getCategoryName() {
+        return categoryName;
+    }
+}
@@ -1,7 +1,16 @@
 package com.devsuperior.aula.repositories;
 
+import com.devsuperior.aula.dto.CategoryDTO;
 import com.devsuperior.aula.entities.Category;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
 
 public interface CategoryRepository extends JpaRepository<Category, Long> {
+
+    //Categorias direto como DTO, sem carregar entidades (usado para aquecer o CategoryCache)
+    @Query("SELECT new com.devsuperior.aula.dto.CategoryDTO(c.id, c.name) FROM Category c ORDER BY c.id")
+    List<CategoryDTO> findAllAsDto(Pageable pageable);
 }
@@ -1,7 +1,39 @@
 package com.devsuperior.aula.repositories;
 
 import com.devsuperior.aula.entities.Product;
+import com.devsuperior.aula.projections.ProductCategoryRow;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
 
 public interface ProductRepository extends JpaRepository<Product, Long> {
+
+    //Primeiro passo da listagem paginada: so os ids da pagina (e o total).
+    //Nao da pra paginar direto um JOIN de colecao: o banco paginaria linhas (produto x categoria) e nao produtos
+    @Query(value = "SELECT p.id FROM Product p", countQuery = "SELECT COUNT(p) FROM Product p")
+    Page<Long> findPageIds(Pageable pageable);
+
+    //Paginacao por cursor (keyset): busca direto a partir do ultimo id visto usando a chave primaria,
+    //entao a pagina 1000 custa o mesmo que a primeira (diferente do OFFSET, que percorre e descarta tudo antes)
+    @Query("SELECT p.id FROM Product p WHERE p.id > :afterId ORDER BY p.id")
+    List<Long> findIdsAfter(Long afterId, Limit limit);
+
+    //Mesma ideia filtrando pela categoria. Usa o indice (category_id, product_id) de tb_product_category para continuar sendo uma busca por chave
+    @Query("SELECT p.id FROM Product p JOIN p.categories c WHERE c.id = :categoryId AND p.id > :afterId ORDER BY p.id")
+    List<Long> findIdsByCategoryAfter(Long categoryId, Long afterId, Limit limit);
+
+    //Leitura sem entidades: produtos com as categorias em linhas planas (produto x categoria) que viram DTO direto, numa consulta so
+    //(sem o N+1 de carregar as categorias de cada produto).
+    //Usadas nas leituras do ProductService, que rodam em transacao read-only
+    @Query("SELECT new com.devsuperior.aula.projections.ProductCategoryRow(p.id, p.name, p.price, c.id, c.name) "
+            + "FROM Product p LEFT JOIN p.categories c WHERE p.id IN :ids")
+    List<ProductCategoryRow> findRowsByIdIn(List<Long> ids);
+
+    @Query("SELECT new com.devsuperior.aula.projections.ProductCategoryRow(p.id, p.name, p.price, c.id, c.name) "
+            + "FROM Product p LEFT JOIN p.categories c WHERE p.id = :id")
+    List<ProductCategoryRow> findRowsById(Long id);
 }
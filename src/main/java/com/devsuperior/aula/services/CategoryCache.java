@@ -0,0 +1,104 @@
+package com.devsuperior.aula.services;
+
+import com.devsuperior.aula.dto.CategoryDTO;
+import com.devsuperior.aula.repositories.CategoryRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+//Cache read-through das categorias: o insert de produtos valida os ids e pega os nomes daqui, sem um SELECT por categoria.
+//Eh limitado a maxSize entradas (quando enche sai a categoria usada ha mais tempo) e eh invalidado pelo CategoryCacheListener
+//sempre que uma categoria eh gravada ou removida. As estatisticas ficam em /actuator/metrics (cache.gets, cache.evictions, cache.size).
+@Component
+public class CategoryCache implements MeterBinder {
+
+    @Autowired
+    private CategoryRepository repository;
+
+    @Value("${app.categories.cache.max-size:10000}")
+    private int maxSize;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    //LinkedHashMap em ordem de acesso: o primeiro elemento eh sempre o menos usado recentemente
+    private final Map<Long, CategoryDTO> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, CategoryDTO> eldest) {
+            if (size() > maxSize) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    //Retorna a categoria do id informado ou null se ela nao existir. So vai ao banco quando a categoria nao esta no cache
+    public CategoryDTO get(Long id) {
+        synchronized (entries) {
+            CategoryDTO cached = entries.get(id);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+        }
+        misses.increment();
+        CategoryDTO loaded = repository.findById(id).map(CategoryDTO::new).orElse(null);
+        if (loaded != null) {
+            put(loaded);
+        }
+        return loaded;
+    }
+
+    public void evict(Long id) {
+        synchronized (entries) {
+            entries.remove(id);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    //Categorias sao poucas, entao ja carregamos ate maxSize delas quando a aplicacao sobe
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        for (CategoryDTO category : repository.findAllAsDto(PageRequest.of(0, maxSize))) {
+            put(category);
+        }
+    }
+
+    private void put(CategoryDTO category) {
+        synchronized (entries) {
+            entries.put(category.getId(), category);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", hits, LongAdder::sum).tag("cache", "categories").tag("result", "hit").register(registry);
+        FunctionCounter.builder("cache.gets", misses, LongAdder::sum).tag("cache", "categories").tag("result", "miss").register(registry);
+        FunctionCounter.builder("cache.evictions", evictions, LongAdder::sum).tag("cache", "categories").register(registry);
+        Gauge.builder("cache.size", this, CategoryCache::size).tag("cache", "categories").register(registry);
+    }
+}
@@ -0,0 +1,45 @@
+package com.devsuperior.aula.services;
+
+import com.devsuperior.aula.entities.Category;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+//Entity listener da Category: tira a categoria do CategoryCache quando ela eh gravada ou removida.
+//Como o nome da categoria aparece em todas as respostas de produto, o ResponseCache inteiro eh descartado depois do commit.
+//Tira na hora e de novo depois do commit, para ninguem recolocar no cache o valor antigo enquanto a transacao ainda esta aberta.
+//O @Lazy evita a dependencia circular CategoryCache -> CategoryRepository -> EntityManagerFactory -> listener -> CategoryCache
+@Component
+public class CategoryCacheListener {
+
+    @Autowired
+    @Lazy
+    private CategoryCache cache;
+
+    @Autowired
+    @Lazy
+    private ResponseCache responseCache;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Category category) {
+        Long id = category.getId();
+        cache.evict(id);
+        responseCache.invalidateAll();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.evict(id);
+                    responseCache.invalidateAll();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.devsuperior.aula.services;
+
+import com.devsuperior.aula.config.ProductShards;
+import com.devsuperior.aula.dto.CategoryDTO;
+import com.devsuperior.aula.dto.ProductDTO;
+import com.devsuperior.aula.services.events.ProductsInsertedEvent;
+import com.devsuperior.aula.services.events.ProductsModifiedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Resumo materializado em memoria dos precos por categoria (quantidade, minimo, maximo e soma).
+//Eh reconstruido com um unico GROUP BY quando a aplicacao sobe e acumulado depois do commit de cada insert
+//(ProductsInsertedEvent), entao ler as estatisticas custa O(numero de categorias), nao importa quantos produtos existam.
+//Minimo e maximo nao podem ser "desfeitos" quando um produto sai ou muda de preco, entao quem altera ou remove produtos
+//(hoje as operacoes em massa, via ProductsModifiedEvent) manda refazer no banco so as categorias afetadas (recompute).
+//Com sharding o GROUP BY roda em cada shard em paralelo e os resultados sao somados (contagem e soma) ou comparados (min e max).
+//
+//Um insert que comita durante um GROUP BY pode ou nao aparecer nele, e o add dele chega depois do commit: sobrescrever o
+//acumulador com o resultado do GROUP BY perderia ou contaria duas vezes esse produto. Por isso cada acumulador conta os
+//inserts entre o antes do commit e o add (pending) e quantos adds ja recebeu (version). O resultado do GROUP BY so eh
+//aplicado se nenhum insert da categoria esteve nesse intervalo desde antes da consulta; senao a categoria eh consultada de novo
+@Component
+public class CategoryPriceStats {
+
+    private static final Logger logger = LoggerFactory.getLogger(CategoryPriceStats.class);
+
+    private static final String GROUP_BY_CATEGORY = "SELECT pc.category_id, COUNT(*), MIN(p.price), MAX(p.price), SUM(p.price) "
+            + "FROM tb_product_category pc JOIN tb_product p ON p.id = pc.product_id ";
+
+    //Quantas vezes uma categoria eh consultada de novo porque recebeu inserts durante a consulta
+    private static final int MAX_REFRESH_ATTEMPTS = 5;
+
+    private static final Snapshot EMPTY = new Snapshot(0, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, 0);
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProductShards shards;
+
+    //Acumuladores nunca saem do mapa (uma categoria sem produtos fica com count 0): um add em andamento sempre acha o mesmo objeto
+    private final Map<Long, Accumulator> accumulators = new ConcurrentHashMap<>();
+
+    //Copia consistente do acumulador de cada categoria que tem produtos, em ordem de id da categoria
+    public Map<Long, Snapshot> snapshot() {
+        Map<Long, Snapshot> result = new TreeMap<>();
+        accumulators.forEach((categoryId, accumulator) -> {
+            Snapshot snapshot = accumulator.snapshot();
+            if (snapshot.count() > 0) {
+                result.put(categoryId, snapshot);
+            }
+        });
+        return result;
+    }
+
+    //Antes do commit cada categoria do insert fica pendente; depois do commit (ou rollback) recebe o preco e deixa de estar
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onProductsInserted(ProductsInsertedEvent event) {
+        List<Accumulator> touched = new ArrayList<>();
+        List<Double> prices = new ArrayList<>();
+        for (ProductDTO product : event.getProducts()) {
+            for (CategoryDTO category : product.getCategories()) {
+                Accumulator accumulator = accumulator(category.getId());
+                accumulator.begin();
+                touched.add(accumulator);
+                prices.add(product.getPrice());
+            }
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                for (int i = 0; i < touched.size(); i++) {
+                    touched.get(i).complete(prices.get(i), status == STATUS_COMMITTED);
+                }
+            }
+        });
+    }
+
+    @TransactionalEventListener
+    public void onProductsModified(ProductsModifiedEvent event) {
+        recompute(event.getCategoryIds());
+    }
+
+    //Refaz no banco so as categorias informadas (para caminhos que alteram ou removem produtos)
+    public void recompute(Collection<Long> categoryIds) {
+        if (categoryIds.isEmpty()) {
+            return;
+        }
+        Set<Long> pending = new HashSet<>(categoryIds);
+        for (int attempt = 1; attempt <= MAX_REFRESH_ATTEMPTS && !pending.isEmpty(); attempt++) {
+            Map<Long, Long> versions = stableVersions(pending);
+            MapSqlParameterSource params = new MapSqlParameterSource("ids", pending);
+            Map<Long, Snapshot> recomputed = merge(shards.fanOut(shard -> groupBy("WHERE pc.category_id IN (:ids) ", params)));
+            pending = apply(versions, recomputed);
+        }
+        if (!pending.isEmpty()) {
+            logger.warn("Estatisticas das categorias {} nao foram refeitas: recebendo inserts durante {} consultas seguidas",
+                    pending, MAX_REFRESH_ATTEMPTS);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.nanoTime();
+        Map<Long, Long> versions = stableVersions(accumulators.keySet());
+        Map<Long, Snapshot> stats = merge(shards.fanOut(shard -> groupBy("", new MapSqlParameterSource())));
+        //Categorias que aparecem pela primeira vez no GROUP BY partem da versao 0, a de um acumulador novo
+        stats.keySet().forEach(categoryId -> versions.putIfAbsent(categoryId, 0L));
+        Set<Long> retry = apply(versions, stats);
+        if (!retry.isEmpty()) {
+            recompute(retry);
+        }
+        logger.info("Estatisticas de preco por categoria reconstruidas: {} categorias em {} ms",
+                stats.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private Map<Long, Snapshot> groupBy(String where, MapSqlParameterSource params) {
+        Map<Long, Snapshot> shardStats = new HashMap<>();
+        jdbcTemplate.query(GROUP_BY_CATEGORY + where + "GROUP BY pc.category_id", params,
+                rs -> {
+                    shardStats.put(rs.getLong(1), new Snapshot(rs.getLong(2), rs.getDouble(3), rs.getDouble(4), rs.getDouble(5)));
+                });
+        return shardStats;
+    }
+
+    //Versao de cada categoria antes da consulta; categorias com insert pendente ficam de fora (serao consultadas de novo)
+    private Map<Long, Long> stableVersions(Collection<Long> categoryIds) {
+        Map<Long, Long> versions = new HashMap<>();
+        for (Long categoryId : categoryIds) {
+            versions.put(categoryId, accumulator(categoryId).stableVersion());
+        }
+        return versions;
+    }
+
+    //Aplica o resultado da consulta nas categorias que nao receberam inserts desde stableVersions; devolve as outras
+    private Set<Long> apply(Map<Long, Long> versions, Map<Long, Snapshot> stats) {
+        Set<Long> retry = new HashSet<>();
+        versions.forEach((categoryId, version) -> {
+            if (!accumulator(categoryId).resetIfUnchanged(version, stats.getOrDefault(categoryId, EMPTY))) {
+                retry.add(categoryId);
+            }
+        });
+        return retry;
+    }
+
+    private Accumulator accumulator(Long categoryId) {
+        return accumulators.computeIfAbsent(categoryId, id -> new Accumulator());
+    }
+
+    //Junta o resultado do GROUP BY de cada shard. Com um shard so eh o proprio mapa dele
+    private static Map<Long, Snapshot> merge(List<Map<Long, Snapshot>> shardStats) {
+        Map<Long, Snapshot> merged = shardStats.get(0);
+        for (int shard = 1; shard < shardStats.size(); shard++) {
+            shardStats.get(shard).forEach((categoryId, stats) -> merged.merge(categoryId, stats, Snapshot::plus));
+        }
+        return merged;
+    }
+
+    public record Snapshot(long count, double min, double max, double sum) {
+
+        Snapshot plus(Snapshot other) {
+            return new Snapshot(count + other.count, Math.min(min, other.min), Math.max(max, other.max), sum + other.sum);
+        }
+    }
+
+    private static class Accumulator {
+
+        private long count;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+        private double sum;
+
+        //Inserts da categoria entre o antes do commit e o add
+        private int pending;
+        //Quantos inserts da categoria ja terminaram (comitados ou nao)
+        private long version;
+
+        synchronized void begin() {
+            pending++;
+        }
+
+        synchronized void complete(double price, boolean committed) {
+            if (committed) {
+                count++;
+                min = Math.min(min, price);
+                max = Math.max(max, price);
+                sum += price;
+            }
+            pending--;
+            version++;
+        }
+
+        //-1 enquanto houver insert pendente: nenhum resultado de consulta pode ser aplicado com essa versao
+        synchronized long stableVersion() {
+            return pending > 0 ? -1 : version;
+        }
+
+        synchronized boolean resetIfUnchanged(long expectedVersion, Snapshot stats) {
+            if (pending > 0 || version != expectedVersion) {
+                return false;
+            }
+            this.count = stats.count();
+            this.min = stats.min();
+            this.max = stats.max();
+            this.sum = stats.sum();
+            return true;
+        }
+
+        synchronized Snapshot snapshot() {
+            return new Snapshot(count, min, max, sum);
+        }
+    }
+}
@@ -0,0 +1,348 @@
+package com.devsuperior.aula.services;
+
+import com.devsuperior.aula.config.ProductShards;
+import com.devsuperior.aula.dto.CategoryDTO;
+import com.devsuperior.aula.dto.ProductDTO;
+import com.devsuperior.aula.services.events.ProductsInsertedEvent;
+import com.devsuperior.aula.services.events.ProductsModifiedEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+//Indice invertido em memoria: para cada categoria, os produtos dela ordenados por (preco, id) em arrays de primitivos.
+//Responde "produtos da categoria X com preco entre A e B" com uma busca binaria, sem JOIN de tb_product_category com tb_product.
+//Arrays de long/double ocupam 16 bytes por produto, contra dezenas de bytes por elemento num Set<Long> ou TreeMap<Double, Long>.
+//Eh reconstruido do banco quando a aplicacao sobe e atualizado depois do commit de cada insert (ProductsInsertedEvent).
+//Depois de uma operacao em massa (ProductsModifiedEvent) as categorias afetadas sao relidas do banco inteiras.
+//Com sharding cada shard eh lido em paralelo e os buckets ordenados de cada um sao intercalados (merge) num so.
+@Component
+public class CategoryProductIndex implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(CategoryProductIndex.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    private ProductShards shards;
+
+    private volatile Map<Long, PriceBucket> buckets = new ConcurrentHashMap<>();
+
+    //Um add que chega enquanto uma reconstrucao le o banco pode ir para um bucket que ela esta prestes a descartar.
+    //Por isso cada reconstrucao em andamento tem um gravador com os adds desse intervalo, que sao refeitos nos buckets novos
+    //na troca (add eh idempotente, entao refazer um produto que a consulta ja trouxe nao muda nada).
+    //Os adds usam a trava de leitura e so a entrada e a saida de uma reconstrucao usam a de escrita
+    private final ReentrantReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+    private final List<List<Added>> recorders = new ArrayList<>();
+
+    //Ids dos produtos da categoria com preco entre minPrice e maxPrice (inclusive), em ordem de preco, no maximo limit ids
+    public long[] findProductIds(Long categoryId, double minPrice, double maxPrice, int limit) {
+        PriceBucket bucket = buckets.get(categoryId);
+        if (bucket == null) {
+            return new long[0];
+        }
+        return bucket.range(minPrice, maxPrice, limit);
+    }
+
+    public void add(Long categoryId, double price, long productId) {
+        rebuildLock.readLock().lock();
+        try {
+            for (List<Added> recorder : recorders) {
+                recorder.add(new Added(categoryId, price, productId));
+            }
+            buckets.computeIfAbsent(categoryId, id -> new PriceBucket()).add(price, productId);
+        }
+        finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener
+    public void onProductsInserted(ProductsInsertedEvent event) {
+        for (ProductDTO product : event.getProducts()) {
+            for (CategoryDTO category : product.getCategories()) {
+                add(category.getId(), product.getPrice(), product.getId());
+            }
+        }
+    }
+
+    @TransactionalEventListener
+    public void onProductsModified(ProductsModifiedEvent event) {
+        rebuild(event.getCategoryIds());
+    }
+
+    //Rele do banco so as categorias informadas e troca os buckets delas de uma vez
+    public void rebuild(Collection<Long> categoryIds) {
+        if (categoryIds.isEmpty()) {
+            return;
+        }
+        List<Added> recorder = startRecording();
+        Map<Long, PriceBucket> rebuilt = null;
+        try {
+            rebuilt = merge(shards.fanOut(shard -> {
+                Map<Long, PriceBucket> shardBuckets = new HashMap<>();
+                namedJdbcTemplate.query("SELECT pc.category_id, p.price, p.id FROM tb_product_category pc "
+                                + "JOIN tb_product p ON p.id = pc.product_id WHERE pc.category_id IN (:ids) ORDER BY pc.category_id, p.price, p.id",
+                        new MapSqlParameterSource("ids", categoryIds),
+                        rs -> {
+                            shardBuckets.computeIfAbsent(rs.getLong(1), id -> new PriceBucket()).append(rs.getDouble(2), rs.getLong(3));
+                        });
+                return shardBuckets;
+            }));
+        }
+        finally {
+            publish(recorder, rebuilt, new HashSet<>(categoryIds));
+        }
+    }
+
+    //Le tb_product_category ja ordenado por categoria e preco, entao cada linha so eh adicionada no fim do array da categoria
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.nanoTime();
+        List<Added> recorder = startRecording();
+        Map<Long, PriceBucket> rebuilt = null;
+        try {
+            rebuilt = merge(shards.fanOut(shard -> {
+                Map<Long, PriceBucket> shardBuckets = new ConcurrentHashMap<>();
+                jdbcTemplate.query("SELECT pc.category_id, p.price, p.id FROM tb_product_category pc "
+                                + "JOIN tb_product p ON p.id = pc.product_id ORDER BY pc.category_id, p.price, p.id",
+                        rs -> {
+                            shardBuckets.computeIfAbsent(rs.getLong(1), id -> new PriceBucket()).append(rs.getDouble(2), rs.getLong(3));
+                        });
+                return shardBuckets;
+            }));
+        }
+        finally {
+            publish(recorder, rebuilt, null);
+        }
+        logger.info("Indice categoria -> produtos reconstruido: {} entradas, {} bytes em {} ms",
+                entries(), memoryBytes(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private List<Added> startRecording() {
+        List<Added> recorder = Collections.synchronizedList(new ArrayList<>());
+        rebuildLock.writeLock().lock();
+        try {
+            recorders.add(recorder);
+        }
+        finally {
+            rebuildLock.writeLock().unlock();
+        }
+        return recorder;
+    }
+
+    //Troca os buckets reconstruidos (categoryIds null = o indice inteiro) e refaz neles os adds gravados durante a leitura.
+    //Com rebuilt null (a leitura falhou) so para de gravar
+    private void publish(List<Added> recorder, Map<Long, PriceBucket> rebuilt, Set<Long> categoryIds) {
+        rebuildLock.writeLock().lock();
+        try {
+            recorders.remove(recorder);
+            if (rebuilt == null) {
+                return;
+            }
+            if (categoryIds == null) {
+                buckets = rebuilt;
+            }
+            else {
+                for (Long categoryId : categoryIds) {
+                    PriceBucket bucket = rebuilt.get(categoryId);
+                    if (bucket == null) {
+                        buckets.remove(categoryId);
+                    }
+                    else {
+                        buckets.put(categoryId, bucket);
+                    }
+                }
+            }
+            for (Added added : recorder) {
+                if (categoryIds == null || categoryIds.contains(added.categoryId())) {
+                    buckets.computeIfAbsent(added.categoryId(), id -> new PriceBucket()).add(added.price(), added.productId());
+                }
+            }
+        }
+        finally {
+            rebuildLock.writeLock().unlock();
+        }
+    }
+
+    //Junta os buckets lidos de cada shard. Com um shard so eh o proprio mapa dele
+    private static Map<Long, PriceBucket> merge(List<Map<Long, PriceBucket>> shardBuckets) {
+        Map<Long, PriceBucket> merged = shardBuckets.get(0);
+        for (int shard = 1; shard < shardBuckets.size(); shard++) {
+            shardBuckets.get(shard).forEach((categoryId, bucket) -> merged.merge(categoryId, bucket, PriceBucket::merge));
+        }
+        return merged;
+    }
+
+    public long entries() {
+        long total = 0;
+        for (PriceBucket bucket : buckets.values()) {
+            total += bucket.size();
+        }
+        return total;
+    }
+
+    //Estimativa do heap usado pelos arrays (e pelos objetos que os guardam), exposta como metrica
+    public long memoryBytes() {
+        long total = 0;
+        for (PriceBucket bucket : buckets.values()) {
+            total += bucket.memoryBytes();
+        }
+        return total;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("products.category.index.memory", this, CategoryProductIndex::memoryBytes)
+                .baseUnit("bytes").description("Heap estimado do indice categoria -> produtos").register(registry);
+        Gauge.builder("products.category.index.entries", this, CategoryProductIndex::entries)
+                .description("Pares (categoria, produto) no indice").register(registry);
+    }
+
+    private record Added(Long categoryId, double price, long productId) {
+    }
+
+    //Produtos de uma categoria: dois arrays paralelos ordenados por (preco, id)
+    private static class PriceBucket {
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private double[] prices = new double[8];
+        private long[] productIds = new long[8];
+        private int size;
+
+        void add(double price, long productId) {
+            lock.writeLock().lock();
+            try {
+                int pos = insertionPoint(price, productId);
+                if (pos < size && prices[pos] == price && productIds[pos] == productId) {
+                    return; //ja esta no indice
+                }
+                ensureCapacity();
+                System.arraycopy(prices, pos, prices, pos + 1, size - pos);
+                System.arraycopy(productIds, pos, productIds, pos + 1, size - pos);
+                prices[pos] = price;
+                productIds[pos] = productId;
+                size++;
+            }
+            finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        //So usado no rebuild, que ja entrega as linhas em ordem
+        void append(double price, long productId) {
+            ensureCapacity();
+            prices[size] = price;
+            productIds[size] = productId;
+            size++;
+        }
+
+        //Intercala dois buckets ja ordenados (de shards diferentes) num bucket novo, em O(n)
+        static PriceBucket merge(PriceBucket first, PriceBucket second) {
+            PriceBucket merged = new PriceBucket();
+            merged.prices = new double[Math.max(8, first.size + second.size)];
+            merged.productIds = new long[merged.prices.length];
+            int i = 0;
+            int j = 0;
+            while (i < first.size || j < second.size) {
+                boolean takeFirst = j == second.size || (i < first.size && (first.prices[i] < second.prices[j]
+                        || (first.prices[i] == second.prices[j] && first.productIds[i] < second.productIds[j])));
+                if (takeFirst) {
+                    merged.append(first.prices[i], first.productIds[i]);
+                    i++;
+                }
+                else {
+                    merged.append(second.prices[j], second.productIds[j]);
+                    j++;
+                }
+            }
+            return merged;
+        }
+
+        long[] range(double minPrice, double maxPrice, int limit) {
+            lock.readLock().lock();
+            try {
+                int from = insertionPoint(minPrice, Long.MIN_VALUE);
+                int to = from;
+                while (to < size && to - from < limit && prices[to] <= maxPrice) {
+                    to++;
+                }
+                return Arrays.copyOfRange(productIds, from, to);
+            }
+            finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        int size() {
+            lock.readLock().lock();
+            try {
+                return size;
+            }
+            finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        long memoryBytes() {
+            lock.readLock().lock();
+            try {
+                //2 arrays (cabecalho de 16 bytes + conteudo) + o proprio bucket e o lock
+                return 2 * 16L + (long) prices.length * Double.BYTES + (long) productIds.length * Long.BYTES + 64;
+            }
+            finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        //Primeira posicao cujo (preco, id) eh maior ou igual ao informado
+        private int insertionPoint(double price, long productId) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                int cmp = Double.compare(prices[mid], price);
+                if (cmp < 0 || (cmp == 0 && productIds[mid] < productId)) {
+                    low = mid + 1;
+                }
+                else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private void ensureCapacity() {
+            if (size == prices.length) {
+                int capacity = prices.length + (prices.length >> 1);
+                prices = Arrays.copyOf(prices, capacity);
+                productIds = Arrays.copyOf(productIds, capacity);
+            }
+        }
+    }
+}
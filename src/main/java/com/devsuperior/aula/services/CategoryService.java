@@ -0,0 +1,206 @@
+package com.devsuperior.aula.services;
+
+import com.devsuperior.aula.config.ProductShards;
+import com.devsuperior.aula.dto.BulkOperationResultDTO;
+import com.devsuperior.aula.dto.CategoryDTO;
+import com.devsuperior.aula.dto.CategoryLinkRequestDTO;
+import com.devsuperior.aula.dto.CategoryRepriceRequestDTO;
+import com.devsuperior.aula.dto.CategoryStatsDTO;
+import com.devsuperior.aula.dto.ProductDTO;
+import com.devsuperior.aula.services.events.ProductsModifiedEvent;
+import com.devsuperior.aula.services.exceptions.InvalidDataException;
+import com.devsuperior.aula.services.exceptions.ResourceNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Service
+public class CategoryService {
+
+    //Maior quantidade de produtos devolvida por GET /categories/{id}/products
+    private static final int MAX_LIMIT = 1000;
+
+    //Quantos ids vao em cada IN (...) do vinculo por lista de ids
+    private static final int LINK_CHUNK_SIZE = 1000;
+
+    //Produtos que ainda nao estao na categoria :categoryId (evita duplicar a linha em tb_product_category)
+    private static final String NOT_LINKED = "NOT EXISTS (SELECT 1 FROM tb_product_category x "
+            + "WHERE x.product_id = p.id AND x.category_id = :categoryId)";
+
+    @Autowired
+    private CategoryCache categoryCache;
+
+    @Autowired
+    private CategoryProductIndex categoryProductIndex;
+
+    @Autowired
+    private CategoryPriceStats categoryPriceStats;
+
+    @Autowired
+    private ProductService productService;
+
+    //As operacoes em massa sao SQL direto em tb_product e tb_product_category, sem carregar nenhuma entidade
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    //Cada operacao em massa roda numa transacao por shard (com um shard so, numa transacao so)
+    @Autowired
+    private ProductShards shards;
+
+    //O filtro por categoria e faixa de preco eh todo feito no indice em memoria; o banco so eh usado para
+    //carregar os produtos que entraram no resultado (uma consulta por id, ja com as categorias)
+    public List<ProductDTO> findProductsByPriceRange(Long categoryId, Double minPrice, Double maxPrice, int limit) {
+        requireCategory(categoryId);
+        double min = minPrice == null ? Double.NEGATIVE_INFINITY : minPrice;
+        double max = maxPrice == null ? Double.POSITIVE_INFINITY : maxPrice;
+        long[] ids = categoryProductIndex.findProductIds(categoryId, min, max, Math.min(Math.max(limit, 1), MAX_LIMIT));
+
+        List<Long> idList = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            idList.add(id);
+        }
+        return productService.findByIds(idList);
+    }
+
+    //Estatisticas lidas do resumo em memoria, sem GROUP BY no banco. Os nomes vem do cache de categorias
+    public List<CategoryStatsDTO> findStats() {
+        Map<Long, CategoryPriceStats.Snapshot> snapshot = categoryPriceStats.snapshot();
+        List<CategoryStatsDTO> result = new ArrayList<>(snapshot.size());
+        snapshot.forEach((categoryId, stats) -> {
+            CategoryDTO category = categoryCache.get(categoryId);
+            result.add(new CategoryStatsDTO(categoryId, category == null ? null : category.getName(),
+                    stats.count(), stats.min(), stats.max(), stats.sum()));
+        });
+        return result;
+    }
+
+    //Vincula produtos a categoria com INSERT ... SELECT: pela lista de ids (um INSERT a cada LINK_CHUNK_SIZE ids)
+    //ou pelo filtro (um INSERT so). Produtos que ja estao na categoria e ids que nao existem sao ignorados.
+    //Antes de cada INSERT o mesmo SELECT traz os ids que vao ser vinculados, para o evento que atualiza indices e caches.
+    //Com sharding o filtro roda em todos os shards e a lista de ids so nos shards desses ids; cada shard confirma a sua
+    //parte e publica o seu evento (a operacao nao eh atomica entre shards)
+    public BulkOperationResultDTO linkProducts(Long categoryId, CategoryLinkRequestDTO request) {
+        requireCategory(categoryId);
+        if (request.hasFilter() && !request.getProductIds().isEmpty()) {
+            throw new InvalidDataException("Informe a lista de produtos ou o filtro, nao os dois");
+        }
+        if (request.getFromCategoryId() != null) {
+            requireCategory(request.getFromCategoryId());
+        }
+
+        long affected = 0;
+        if (request.hasFilter()) {
+            for (int shard = 0; shard < shards.count(); shard++) {
+                affected += shards.inTransaction(shard, () -> linkByFilter(categoryId, request));
+            }
+        }
+        else {
+            List<Long> ids = new ArrayList<>(new LinkedHashSet<>(request.getProductIds()));
+            ids.remove(null);
+            for (Map.Entry<Integer, List<Long>> group : shards.groupByShard(ids).entrySet()) {
+                affected += shards.inTransaction(group.getKey(), () -> linkByIds(categoryId, group.getValue()));
+            }
+        }
+        return new BulkOperationResultDTO(affected);
+    }
+
+    private long linkByFilter(Long categoryId, CategoryLinkRequestDTO request) {
+        MapSqlParameterSource params = new MapSqlParameterSource("categoryId", categoryId)
+                .addValue("minPrice", request.getMinPrice())
+                .addValue("maxPrice", request.getMaxPrice())
+                .addValue("fromCategoryId", request.getFromCategoryId());
+        String where = linkFilter(request);
+        Set<Long> linked = new LinkedHashSet<>(
+                jdbcTemplate.queryForList("SELECT p.id FROM tb_product p WHERE " + where, params, Long.class));
+        long affected = jdbcTemplate.update("INSERT INTO tb_product_category (product_id, category_id) "
+                + "SELECT p.id, :categoryId FROM tb_product p WHERE " + where, params);
+        publishLinked(categoryId, linked);
+        return affected;
+    }
+
+    private long linkByIds(Long categoryId, List<Long> ids) {
+        Set<Long> linked = new LinkedHashSet<>();
+        long affected = 0;
+        for (int from = 0; from < ids.size(); from += LINK_CHUNK_SIZE) {
+            MapSqlParameterSource params = new MapSqlParameterSource("categoryId", categoryId)
+                    .addValue("ids", ids.subList(from, Math.min(from + LINK_CHUNK_SIZE, ids.size())));
+            String where = "p.id IN (:ids) AND " + NOT_LINKED;
+            linked.addAll(jdbcTemplate.queryForList("SELECT p.id FROM tb_product p WHERE " + where, params, Long.class));
+            affected += jdbcTemplate.update("INSERT INTO tb_product_category (product_id, category_id) "
+                    + "SELECT p.id, :categoryId FROM tb_product p WHERE " + where, params);
+        }
+        publishLinked(categoryId, linked);
+        return affected;
+    }
+
+    private void publishLinked(Long categoryId, Set<Long> linked) {
+        if (!linked.isEmpty()) {
+            eventPublisher.publishEvent(new ProductsModifiedEvent(linked, Set.of(categoryId), false));
+        }
+    }
+
+    //Aplica o percentual ao preco de todos os produtos da categoria com um UPDATE so (arredondado em 2 casas).
+    //As outras categorias desses produtos tambem entram no evento, porque o preco deles mudou nelas tambem.
+    //Com sharding roda em todos os shards, um de cada vez, cada um na sua transacao e com o seu evento
+    public BulkOperationResultDTO repriceProducts(Long categoryId, CategoryRepriceRequestDTO request) {
+        requireCategory(categoryId);
+        if (request.getPercent() == null || request.getPercent() <= -100.0) {
+            throw new InvalidDataException("Percentual invalido: informe um valor maior que -100");
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource("categoryId", categoryId)
+                .addValue("factor", 1.0 + request.getPercent() / 100.0);
+        long affected = 0;
+        for (int shard = 0; shard < shards.count(); shard++) {
+            affected += shards.inTransaction(shard, () -> reprice(params));
+        }
+        return new BulkOperationResultDTO(affected);
+    }
+
+    private long reprice(MapSqlParameterSource params) {
+        Set<Long> productIds = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT product_id FROM tb_product_category WHERE category_id = :categoryId", params, Long.class));
+        Set<Long> categoryIds = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT DISTINCT o.category_id FROM tb_product_category pc "
+                        + "JOIN tb_product_category o ON o.product_id = pc.product_id WHERE pc.category_id = :categoryId",
+                params, Long.class));
+        int affected = jdbcTemplate.update("UPDATE tb_product p SET price = ROUND(p.price * :factor, 2) "
+                + "WHERE p.id IN (SELECT pc.product_id FROM tb_product_category pc WHERE pc.category_id = :categoryId)", params);
+
+        if (!productIds.isEmpty()) {
+            eventPublisher.publishEvent(new ProductsModifiedEvent(productIds, categoryIds, true));
+        }
+        return affected;
+    }
+
+    private String linkFilter(CategoryLinkRequestDTO request) {
+        StringBuilder where = new StringBuilder(NOT_LINKED);
+        if (request.getMinPrice() != null) {
+            where.append(" AND p.price >= :minPrice");
+        }
+        if (request.getMaxPrice() != null) {
+            where.append(" AND p.price <= :maxPrice");
+        }
+        if (request.getFromCategoryId() != null) {
+            where.append(" AND EXISTS (SELECT 1 FROM tb_product_category f WHERE f.product_id = p.id AND f.category_id = :fromCategoryId)");
+        }
+        return where.toString();
+    }
+
+    private void requireCategory(Long categoryId) {
+        if (categoryCache.get(categoryId) == null) {
+            throw new ResourceNotFoundException("Categoria nao encontrada: " + categoryId);
+        }
+    }
+}
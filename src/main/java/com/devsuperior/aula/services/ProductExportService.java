@@ -0,0 +1,211 @@
+package com.devsuperior.aula.services;
+
+import com.devsuperior.aula.config.ProductShards;
+import com.devsuperior.aula.dto.CategoryDTO;
+import com.devsuperior.aula.dto.ProductDTO;
+import com.devsuperior.aula.services.exceptions.InvalidDataException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+//Export do catalogo inteiro em streaming (GET /products/export).
+//Le tb_product com LEFT JOIN nas categorias direto pelo JDBC, em ordem de id e com fetch size, e vai juntando as linhas de cada
+//produto enquanto elas chegam: so o produto atual fica na memoria, nenhuma entidade eh criada e o contexto de persistencia nao cresce.
+//Cada produto completo ja eh escrito na saida (NDJSON ou CSV).
+//Com sharding os shards sao lidos um depois do outro: a ordem de id vale dentro de cada shard, nao no arquivo inteiro.
+//O afterId continua servindo para export incremental (saem todos os produtos com id maior, de todos os shards)
+@Service
+public class ProductExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductExportService.class);
+
+    public static final String NDJSON = "ndjson";
+    public static final String CSV = "csv";
+
+    private static final String EXPORT_SQL = "SELECT p.id, p.name, p.price, c.id, c.name FROM tb_product p "
+            + "LEFT JOIN tb_product_category pc ON pc.product_id = p.id "
+            + "LEFT JOIN tb_category c ON c.id = pc.category_id "
+            + "WHERE p.id > ? ORDER BY p.id, c.id";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProductShards shards;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.products.export.fetch-size:1000}")
+    private int fetchSize;
+
+    public static boolean isSupported(String format) {
+        return NDJSON.equals(format) || CSV.equals(format);
+    }
+
+    //Escreve na saida os produtos com id maior que afterId (null exporta tudo) e devolve quantos foram exportados.
+    //Nao fecha o OutputStream
+    public long export(OutputStream out, String format, Long afterId) throws IOException {
+        if (!isSupported(format)) {
+            throw new InvalidDataException("Formato de export invalido: " + format + " (use ndjson ou csv)");
+        }
+        long start = System.nanoTime();
+        ProductSink sink = CSV.equals(format) ? new CsvSink(out) : new NdjsonSink(out, objectMapper);
+
+        //Transacao read-only so para a leitura ter uma conexao so do comeco ao fim (e o driver poder usar o fetch size)
+        JdbcTemplate template = new JdbcTemplate(jdbcTemplate.getDataSource());
+        template.setFetchSize(fetchSize);
+        ProductGrouper grouper = new ProductGrouper(sink);
+        try {
+            for (int shard = 0; shard < shards.count(); shard++) {
+                shards.inReadOnlyTransaction(shard, () -> {
+                    template.query(EXPORT_SQL, grouper::accept, afterId == null ? 0L : afterId);
+                    return null;
+                });
+            }
+            grouper.finish();
+        }
+        catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        sink.flush();
+        long exported = grouper.count;
+        logger.info("Export {} concluido: {} produtos em {} ms", format, exported, (System.nanoTime() - start) / 1_000_000);
+        return exported;
+    }
+
+    //Junta as linhas consecutivas do mesmo produto (o SQL vem ordenado por p.id) e entrega cada produto completo ao sink
+    private static class ProductGrouper {
+
+        private final ProductSink sink;
+        private ProductDTO current;
+        private long count;
+
+        ProductGrouper(ProductSink sink) {
+            this.sink = sink;
+        }
+
+        void accept(ResultSet rs) throws SQLException {
+            long id = rs.getLong(1);
+            if (current == null || current.getId() != id) {
+                finish();
+                current = new ProductDTO(id, rs.getString(2), rs.getObject(3, Double.class));
+            }
+            long categoryId = rs.getLong(4);
+            if (!rs.wasNull()) {
+                current.getCategories().add(new CategoryDTO(categoryId, rs.getString(5)));
+            }
+        }
+
+        void finish() {
+            if (current == null) {
+                return;
+            }
+            try {
+                sink.write(current);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            count++;
+            current = null;
+        }
+    }
+
+    private interface ProductSink {
+
+        void write(ProductDTO product) throws IOException;
+
+        void flush() throws IOException;
+    }
+
+    //Um ProductDTO em JSON por linha
+    private static class NdjsonSink implements ProductSink {
+
+        private final OutputStream out;
+        private final ObjectWriter writer;
+
+        NdjsonSink(OutputStream out, ObjectMapper objectMapper) {
+            this.out = new BufferedOutputStream(out, 64 * 1024);
+            this.writer = objectMapper.writerFor(ProductDTO.class).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+
+        @Override
+        public void write(ProductDTO product) throws IOException {
+            writer.writeValue(out, product);
+            out.write('\n');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+    }
+
+    //id,name,price,category_ids,category_names com as categorias separadas por | dentro da coluna
+    private static class CsvSink implements ProductSink {
+
+        private final Writer out;
+
+        CsvSink(OutputStream out) throws IOException {
+            this.out = new OutputStreamWriter(new BufferedOutputStream(out, 64 * 1024), StandardCharsets.UTF_8);
+            this.out.write("id,name,price,category_ids,category_names\n");
+        }
+
+        @Override
+        public void write(ProductDTO product) throws IOException {
+            StringBuilder ids = new StringBuilder();
+            StringBuilder names = new StringBuilder();
+            for (CategoryDTO category : product.getCategories()) {
+                if (!ids.isEmpty()) {
+                    ids.append('|');
+                    names.append('|');
+                }
+                ids.append(category.getId());
+                names.append(category.getName());
+            }
+            out.write(String.valueOf(product.getId()));
+            out.write(',');
+            out.write(escape(product.getName()));
+            out.write(',');
+            out.write(String.valueOf(product.getPrice()));
+            out.write(',');
+            out.write(ids.toString());
+            out.write(',');
+            out.write(escape(names.toString()));
+            out.write('\n');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        //Campos com virgula, aspas ou quebra de linha vao entre aspas, com as aspas internas duplicadas
+        private static String escape(String value) {
+            if (value == null) {
+                return "";
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.devsuperior.aula.services;
+
+import com.devsuperior.aula.dto.IngestionTicketDTO;
+import com.devsuperior.aula.dto.ProductBatchErrorDTO;
+import com.devsuperior.aula.dto.ProductDTO;
+import com.devsuperior.aula.services.exceptions.QueueFullException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+//Modo assincrono de POST /products (app.ingestion.async.enabled=true): o produto eh validado, entra numa fila limitada e o
+//cliente recebe 202 com um ticket. Uma thread de gravacao junta o que estiver na fila e grava tudo numa transacao so
+//(group commit): fecha o grupo com batch-size itens ou max-delay-ms depois do primeiro, o que vier antes.
+//Fila cheia = QueueFullException (503). No desligamento a fila para de aceitar e o que sobrou eh gravado antes de o banco fechar.
+@Component
+public class ProductIngestionQueue implements SmartLifecycle, MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductIngestionQueue.class);
+
+    @Autowired
+    private ProductService productService;
+
+    @Value("${app.ingestion.async.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.ingestion.async.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${app.ingestion.async.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.ingestion.async.max-delay-ms:50}")
+    private long maxDelayMillis;
+
+    //Quanto tempo o POST espera por espaco na fila antes de responder 503
+    @Value("${app.ingestion.async.offer-timeout-ms:100}")
+    private long offerTimeoutMillis;
+
+    //Quantos tickets ficam guardados para consulta (os mais antigos sao descartados)
+    @Value("${app.ingestion.async.ticket-retention:100000}")
+    private int ticketRetention;
+
+    private BlockingQueue<Pending> queue;
+    private final Map<String, IngestionTicketDTO> tickets = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<String> ticketOrder = new ConcurrentLinkedQueue<>();
+    private volatile boolean accepting;
+    private volatile boolean running;
+    private Thread writer;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public IngestionTicketDTO submit(ProductDTO dto) {
+        productService.validateForInsert(dto);
+        if (!accepting) {
+            throw new QueueFullException("Fila de gravacao indisponivel");
+        }
+        Pending pending = new Pending(UUID.randomUUID().toString(), dto);
+        try {
+            if (!queue.offer(pending, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new QueueFullException("Fila de gravacao cheia, tente novamente");
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new QueueFullException("Interrompido esperando espaco na fila");
+        }
+        //O stop() pode ter rodado entre a verificacao de accepting e o offer. Se o item ainda esta na fila ninguem vai
+        //grava-lo; se ja saiu, a thread de gravacao ou o stop() cuidaram dele e o ticket ja tem (ou vai ter) o resultado
+        if (!accepting && queue.remove(pending)) {
+            throw new QueueFullException("Fila de gravacao indisponivel");
+        }
+        //So depois do offer: um ticket que nao entrou na fila nunca fica guardado.
+        //A thread de gravacao pode ter gravado o item antes desta linha; nesse caso o resultado dela prevalece
+        IngestionTicketDTO ticket = new IngestionTicketDTO(pending.ticketId, "PENDING", null, null);
+        registerTicket(ticket);
+        return ticket;
+    }
+
+    //null se o ticket nao existe (ou ja foi descartado)
+    public IngestionTicketDTO findTicket(String id) {
+        return tickets.get(id);
+    }
+
+    public int queueSize() {
+        return queue == null ? 0 : queue.size();
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        accepting = true;
+        running = true;
+        writer = new Thread(this::writeLoop, "product-ingestion-writer");
+        writer.start();
+    }
+
+    //Para de aceitar, espera a thread gravar o que ja esta na fila, grava o que ainda tiver chegado e so entao deixa o
+    //contexto fechar o banco
+    @Override
+    public void stop() {
+        if (writer == null) {
+            return;
+        }
+        accepting = false;
+        running = false;
+        try {
+            writer.join();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writer = null;
+        //Itens oferecidos junto com a mudanca de accepting podem chegar depois da ultima volta da thread:
+        //sao gravados aqui, ja que o banco so fecha depois desta fase
+        List<Pending> leftover = new ArrayList<>();
+        while (queue.drainTo(leftover, batchSize) > 0) {
+            write(leftover);
+            leftover.clear();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return writer != null;
+    }
+
+    //Para depois do servidor web (que para de receber requisicoes antes) e antes do banco
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("products.ingestion.queue.size", this, ProductIngestionQueue::queueSize).register(registry);
+    }
+
+    private void writeLoop() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+                while (batch.size() < batchSize) {
+                    long wait = deadline - System.nanoTime();
+                    Pending next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+        logger.info("Fila de gravacao de produtos encerrada");
+    }
+
+    //Grava o grupo com o mesmo caminho do POST /products/batch: uma transacao para o grupo todo e, se o banco recusar
+    //algum item, item por item. Os inseridos voltam na ordem dos itens aceitos, entao basta pular os indices com erro
+    private void write(List<Pending> batch) {
+        List<ProductDTO> dtos = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            dtos.add(pending.dto);
+        }
+        List<ProductDTO> inserted = new ArrayList<>(batch.size());
+        List<ProductBatchErrorDTO> errors = new ArrayList<>();
+        try {
+            productService.insertChunk(dtos, 0, inserted, errors);
+        }
+        catch (RuntimeException e) {
+            //Recusas do banco ja voltam item por item em errors; aqui so chega falha do grupo todo (ex: banco fora do ar)
+            logger.error("Falha gravando {} produtos da fila", batch.size(), e);
+            for (Pending pending : batch) {
+                saveTicket(new IngestionTicketDTO(pending.ticketId, "REJECTED", null, e.getMessage()));
+            }
+            return;
+        }
+
+        Set<Integer> rejected = new HashSet<>();
+        for (ProductBatchErrorDTO error : errors) {
+            rejected.add(error.getIndex());
+            saveTicket(new IngestionTicketDTO(batch.get(error.getIndex()).ticketId, "REJECTED", null, error.getMessage()));
+        }
+        int next = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            if (!rejected.contains(i)) {
+                saveTicket(new IngestionTicketDTO(batch.get(i).ticketId, "INSERTED", inserted.get(next++).getId(), null));
+            }
+        }
+    }
+
+    private void saveTicket(IngestionTicketDTO ticket) {
+        if (tickets.put(ticket.getId(), ticket) == null) {
+            retain(ticket.getId());
+        }
+    }
+
+    //Guarda o ticket so se ainda nao existe
+    private void registerTicket(IngestionTicketDTO ticket) {
+        if (tickets.putIfAbsent(ticket.getId(), ticket) == null) {
+            retain(ticket.getId());
+        }
+    }
+
+    private void retain(String ticketId) {
+        ticketOrder.add(ticketId);
+        while (tickets.size() > ticketRetention) {
+            String oldest = ticketOrder.poll();
+            if (oldest == null) {
+                break;
+            }
+            tickets.remove(oldest);
+        }
+    }
+
+    private record Pending(String ticketId, ProductDTO dto) {
+    }
+}
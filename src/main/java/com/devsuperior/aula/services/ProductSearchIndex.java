@@ -0,0 +1,463 @@
+package com.devsuperior.aula.services;
+
+import com.devsuperior.aula.config.ProductShards;
+import com.devsuperior.aula.dto.ProductDTO;
+import com.devsuperior.aula.dto.ProductSearchResultDTO;
+import com.devsuperior.aula.services.events.ProductsInsertedEvent;
+import com.devsuperior.aula.services.events.ProductsModifiedEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+//Indice de busca por nome de produto, todo em memoria, para nao fazer LIKE '%...%' (full scan) em tb_product.name.
+//Os nomes sao normalizados (minusculas e sem acento: "Eletrônicos" vira "eletronicos") e quebrados em tokens.
+//Cada token aponta para a lista ordenada dos documentos que o contem, e o dicionario de tokens fica ordenado
+//para que a busca por prefixo ("mac" -> "macbook") seja um intervalo do TreeMap. Sao dois dicionarios: um so com a primeira
+//palavra de cada nome e outro com as demais, porque casar com a primeira palavra vale mais na pontuacao.
+//A busca pontua no maximo MAX_CANDIDATES documentos, visitados na ordem do que mais pesa na pontuacao: token igual ao termo
+//antes de token que so comeca com ele, e primeira palavra antes das outras. Assim um prefixo curto ("m") num catalogo de milhoes
+//custa o mesmo que uma busca comum; quando o limite corta candidatos a busca eh contada em products.search.truncated.
+//Eh reconstruido do banco quando a aplicacao sobe e atualizado depois do commit de cada insert (ProductsInsertedEvent).
+//Com sharding a busca continua sendo so em memoria: o indice eh unico e recebe os produtos de todos os shards.
+@Component
+public class ProductSearchIndex implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    //Quantos documentos uma busca pontua no maximo (veja o comentario da classe)
+    static final int MAX_CANDIDATES = 2_000;
+
+    //Quantos produtos sao relidos por consulta depois de uma operacao em massa
+    private static final int REFRESH_CHUNK_SIZE = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    private ProductShards shards;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    //Documentos indexados: a posicao no array eh o numero interno do documento
+    private long[] productIds = new long[1024];
+    private String[] names = new String[1024];
+    private String[][] tokens = new String[1024][];
+    private double[] prices = new double[1024];
+    private int docCount;
+    private final Map<Long, Integer> docByProductId = new HashMap<>();
+
+    //token normalizado -> documentos em que ele eh a primeira palavra do nome / documentos em que ele aparece depois dela
+    private final TreeMap<String, Postings> firstTokens = new TreeMap<>();
+    private final TreeMap<String, Postings> otherTokens = new TreeMap<>();
+
+    //Buscas em que MAX_CANDIDATES deixou candidatos sem pontuar
+    private final AtomicLong truncatedSearches = new AtomicLong();
+
+    public List<ProductSearchResultDTO> search(String query, int limit) {
+        String[] terms = tokenize(query);
+        if (terms.length == 0 || limit <= 0) {
+            return new ArrayList<>();
+        }
+        lock.readLock().lock();
+        try {
+            //o termo com menos candidatos conduz a busca; os outros termos so sao conferidos nos tokens de cada candidato.
+            //A contagem de cada termo para em MAX_CANDIDATES, entao escolher o condutor tambem tem custo limitado
+            int driver = 0;
+            long driverCost = Long.MAX_VALUE;
+            for (int i = 0; i < terms.length; i++) {
+                long cost = cost(terms[i]);
+                if (cost < driverCost) {
+                    driver = i;
+                    driverCost = cost;
+                }
+            }
+            if (driverCost == 0) {
+                return new ArrayList<>();
+            }
+
+            //menor pontuacao no topo para ser a primeira a sair quando o heap passar de limit
+            PriorityQueue<int[]> top = new PriorityQueue<>(Comparator.<int[]>comparingInt(hit -> hit[1])
+                    .thenComparing(hit -> -productIds[hit[0]]));
+            Candidates candidates = new Candidates(terms, driver, limit, top);
+            if (!candidates.visitAll()) {
+                truncatedSearches.incrementAndGet();
+            }
+
+            ProductSearchResultDTO[] result = new ProductSearchResultDTO[top.size()];
+            for (int i = result.length - 1; i >= 0; i--) {
+                int[] hit = top.poll();
+                int doc = hit[0];
+                result[i] = new ProductSearchResultDTO(productIds[doc], names[doc], prices[doc], hit[1]);
+            }
+            return new ArrayList<>(Arrays.asList(result));
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //Inclui o produto no indice, ou atualiza nome e preco se ele ja estiver la
+    public void index(long productId, String name, double price) {
+        lock.writeLock().lock();
+        try {
+            Integer existing = docByProductId.get(productId);
+            if (existing != null) {
+                prices[existing] = price;
+                if (!name.equals(names[existing])) {
+                    String[] oldTokens = tokens[existing];
+                    for (int i = 0; i < oldTokens.length; i++) {
+                        TreeMap<String, Postings> dictionary = i == 0 ? firstTokens : otherTokens;
+                        Postings postings = dictionary.get(oldTokens[i]);
+                        postings.remove(existing);
+                        if (postings.size == 0) {
+                            dictionary.remove(oldTokens[i]);
+                        }
+                    }
+                    addTokens(existing, name);
+                }
+                return;
+            }
+            ensureCapacity();
+            int doc = docCount++;
+            productIds[doc] = productId;
+            prices[doc] = price;
+            docByProductId.put(productId, doc);
+            addTokens(doc, name);
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener
+    public void onProductsInserted(ProductsInsertedEvent event) {
+        for (ProductDTO product : event.getProducts()) {
+            index(product.getId(), product.getName(), product.getPrice());
+        }
+    }
+
+    //Operacoes em massa: so precisa reindexar quando o preco mudou (o nome nunca muda nelas).
+    //Os produtos sao relidos do banco de REFRESH_CHUNK_SIZE em REFRESH_CHUNK_SIZE, cada um no seu shard
+    @TransactionalEventListener
+    public void onProductsModified(ProductsModifiedEvent event) {
+        if (!event.isPricesChanged()) {
+            return;
+        }
+        Map<Integer, List<Long>> idsByShard = shards.groupByShard(event.getProductIds());
+        shards.fanOut(shard -> {
+            List<Long> ids = idsByShard.getOrDefault(shard, List.of());
+            for (int from = 0; from < ids.size(); from += REFRESH_CHUNK_SIZE) {
+                namedJdbcTemplate.query("SELECT id, name, price FROM tb_product WHERE id IN (:ids)",
+                        new MapSqlParameterSource("ids", ids.subList(from, Math.min(from + REFRESH_CHUNK_SIZE, ids.size()))),
+                        rs -> {
+                            index(rs.getLong(1), rs.getString(2), rs.getDouble(3));
+                        });
+            }
+            return null;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            productIds = new long[1024];
+            names = new String[1024];
+            tokens = new String[1024][];
+            prices = new double[1024];
+            docCount = 0;
+            docByProductId.clear();
+            firstTokens.clear();
+            otherTokens.clear();
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+        //index() eh protegido pelo lock, entao os shards podem ser lidos e indexados ao mesmo tempo
+        shards.fanOut(shard -> {
+            jdbcTemplate.query("SELECT id, name, price FROM tb_product ORDER BY id",
+                    rs -> {
+                        index(rs.getLong(1), rs.getString(2), rs.getDouble(3));
+                    });
+            return null;
+        });
+        logger.info("Indice de busca reconstruido: {} produtos, {} tokens em {} ms",
+                size(), tokenCount(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docCount;
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //Entradas dos dois dicionarios (um token que eh primeira palavra de um nome e aparece depois em outro conta duas vezes)
+    public int tokenCount() {
+        lock.readLock().lock();
+        try {
+            return firstTokens.size() + otherTokens.size();
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("products.search.index.documents", this, ProductSearchIndex::size).register(registry);
+        Gauge.builder("products.search.index.tokens", this, ProductSearchIndex::tokenCount).register(registry);
+        FunctionCounter.builder("products.search.truncated", truncatedSearches, AtomicLong::get)
+                .description("Buscas que deixaram candidatos sem pontuar por causa do limite de candidatos").register(registry);
+    }
+
+    //Minusculas, sem acento e quebrado em tudo que nao for letra ou numero
+    static String[] tokenize(String text) {
+        if (text == null) {
+            return new String[0];
+        }
+        String normalized = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return Arrays.stream(SEPARATORS.split(normalized.toLowerCase(Locale.ROOT)))
+                .filter(token -> !token.isEmpty())
+                .toArray(String[]::new);
+    }
+
+    //Token igual ao termo vale 2, token comecando pelo termo vale 1; se algum termo nao casar o documento fica de fora.
+    //Bonus quando o primeiro termo casa com a primeira palavra do nome e para nomes mais curtos (mais proximos da busca)
+    private int score(String[] docTokens, String[] terms) {
+        int score = 0;
+        for (String term : terms) {
+            int best = 0;
+            for (String token : docTokens) {
+                if (token.equals(term)) {
+                    best = 2;
+                    break;
+                }
+                if (token.startsWith(term)) {
+                    best = 1;
+                }
+            }
+            if (best == 0) {
+                return 0;
+            }
+            score += best * 10;
+        }
+        if (docTokens[0].startsWith(terms[0])) {
+            score += 5;
+        }
+        return score + Math.max(0, 5 - (docTokens.length - terms.length));
+    }
+
+    //Quantos documentos tem algum token comecando com term, contando ate MAX_CANDIDATES
+    private long cost(String term) {
+        long cost = 0;
+        for (Postings postings : prefixRange(firstTokens, term).values()) {
+            cost += postings.size;
+            if (cost >= MAX_CANDIDATES) {
+                return cost;
+            }
+        }
+        for (Postings postings : prefixRange(otherTokens, term).values()) {
+            cost += postings.size;
+            if (cost >= MAX_CANDIDATES) {
+                return cost;
+            }
+        }
+        return cost;
+    }
+
+    private static NavigableMap<String, Postings> prefixRange(TreeMap<String, Postings> dictionary, String prefix) {
+        return dictionary.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    //Tokens que comecam com o prefixo, sem o proprio prefixo (as listas dele sao as faixas 1 e 2)
+    private static NavigableMap<String, Postings> strictPrefixRange(TreeMap<String, Postings> dictionary, String prefix) {
+        return dictionary.subMap(prefix, false, prefix + Character.MAX_VALUE, false);
+    }
+
+    private void addTokens(int doc, String name) {
+        names[doc] = name;
+        String[] docTokens = Arrays.stream(tokenize(name)).distinct().toArray(String[]::new);
+        for (int i = 0; i < docTokens.length; i++) {
+            Postings postings = (i == 0 ? firstTokens : otherTokens).computeIfAbsent(docTokens[i], Postings::new);
+            postings.add(doc);
+            //o documento guarda a mesma instancia da chave do dicionario: tokens repetidos em milhoes de nomes ficam
+            //num objeto so, que continua no cache da CPU enquanto a busca confere os candidatos
+            docTokens[i] = postings.token;
+        }
+        tokens[doc] = docTokens;
+    }
+
+    //Mesma ordem do heap: pontuacao maior e, no empate, id de produto menor
+    private boolean beats(int doc, int score, int[] worst) {
+        return score > worst[1] || (score == worst[1] && productIds[doc] < productIds[worst[0]]);
+    }
+
+    //Faixa de um documento para o termo condutor, na ordem em que as listas sao visitadas:
+    //1 = primeira palavra igual ao termo, 2 = outra palavra igual, 3 = primeira palavra comeca com o termo, 4 = outra comeca
+    private int tier(int doc, String term) {
+        String[] docTokens = tokens[doc];
+        if (docTokens[0].equals(term)) {
+            return 1;
+        }
+        for (int i = 1; i < docTokens.length; i++) {
+            if (docTokens[i].equals(term)) {
+                return 2;
+            }
+        }
+        return docTokens[0].startsWith(term) ? 3 : 4;
+    }
+
+    //Menor (na ordem do dicionario) das outras palavras do documento que comecam com o termo: a lista pela qual ele eh pontuado na faixa 4
+    private String firstOtherPrefixToken(int doc, String term) {
+        String first = null;
+        String[] docTokens = tokens[doc];
+        for (int i = 1; i < docTokens.length; i++) {
+            if (docTokens[i].startsWith(term) && (first == null || docTokens[i].compareTo(first) < 0)) {
+                first = docTokens[i];
+            }
+        }
+        return first;
+    }
+
+    //Pontua os documentos das listas visitadas, cada documento uma vez so (pela primeira lista dele na ordem de visita),
+    //ate MAX_CANDIDATES documentos
+    private class Candidates {
+
+        private final String[] terms;
+        private final String term;
+        private final int limit;
+        private final PriorityQueue<int[]> top;
+        private int scored;
+
+        Candidates(String[] terms, int driver, int limit, PriorityQueue<int[]> top) {
+            this.terms = terms;
+            this.term = terms[driver];
+            this.limit = limit;
+            this.top = top;
+        }
+
+        //Faixas 1 a 4 em ordem; false se o limite de candidatos deixou documentos de fora
+        boolean visitAll() {
+            if (!visit(firstTokens.get(term), 1, term) || !visit(otherTokens.get(term), 2, term)) {
+                return false;
+            }
+            for (Map.Entry<String, Postings> entry : strictPrefixRange(firstTokens, term).entrySet()) {
+                if (!visit(entry.getValue(), 3, entry.getKey())) {
+                    return false;
+                }
+            }
+            for (Map.Entry<String, Postings> entry : strictPrefixRange(otherTokens, term).entrySet()) {
+                if (!visit(entry.getValue(), 4, entry.getKey())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        //false se o limite de candidatos cortou a lista
+        boolean visit(Postings postings, int tier, String token) {
+            if (postings == null) {
+                return true;
+            }
+            for (int i = 0; i < postings.size; i++) {
+                int doc = postings.docs[i];
+                if (tier(doc, term) != tier || (tier == 4 && !token.equals(firstOtherPrefixToken(doc, term)))) {
+                    continue; //ja foi (ou vai ser) pontuado por outra lista
+                }
+                if (scored == MAX_CANDIDATES) {
+                    return false;
+                }
+                scored++;
+                int score = score(tokens[doc], terms);
+                if (score > 0 && (top.size() < limit || beats(doc, score, top.peek()))) {
+                    top.add(new int[] {doc, score});
+                    if (top.size() > limit) {
+                        top.poll();
+                    }
+                }
+            }
+            return true;
+        }
+    }
+
+    private void ensureCapacity() {
+        if (docCount == productIds.length) {
+            int capacity = productIds.length * 2;
+            productIds = Arrays.copyOf(productIds, capacity);
+            names = Arrays.copyOf(names, capacity);
+            tokens = Arrays.copyOf(tokens, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+        }
+    }
+
+    //Numeros dos documentos que contem um token, em ordem crescente
+    private static class Postings {
+
+        private final String token;
+        private int[] docs = new int[4];
+        private int size;
+
+        Postings(String token) {
+            this.token = token;
+        }
+
+        void add(int doc) {
+            int pos = Arrays.binarySearch(docs, 0, size, doc);
+            if (pos >= 0) {
+                return;
+            }
+            pos = -pos - 1;
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            System.arraycopy(docs, pos, docs, pos + 1, size - pos);
+            docs[pos] = doc;
+            size++;
+        }
+
+        void remove(int doc) {
+            int pos = Arrays.binarySearch(docs, 0, size, doc);
+            if (pos >= 0) {
+                System.arraycopy(docs, pos + 1, docs, pos, size - pos - 1);
+                size--;
+            }
+        }
+    }
+}
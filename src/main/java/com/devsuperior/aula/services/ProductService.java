@@ -1,27 +1,495 @@
 package com.devsuperior.aula.services;
 
+import com.devsuperior.aula.config.ProductShards;
 import com.devsuperior.aula.dto.CategoryDTO;
+import com.devsuperior.aula.dto.ProductBatchErrorDTO;
+import com.devsuperior.aula.dto.ProductBatchResultDTO;
+import com.devsuperior.aula.dto.ProductCursorPageDTO;
 import com.devsuperior.aula.dto.ProductDTO;
+import com.devsuperior.aula.dto.ProductImportSummaryDTO;
+import com.devsuperior.aula.dto.ProductSearchResultDTO;
 import com.devsuperior.aula.entities.Category;
 import com.devsuperior.aula.entities.Product;
+import com.devsuperior.aula.metrics.PersistenceMetrics;
+import com.devsuperior.aula.projections.ProductCategoryRow;
 import com.devsuperior.aula.repositories.ProductRepository;
+import com.devsuperior.aula.services.events.ProductsInsertedEvent;
+import com.devsuperior.aula.services.exceptions.InvalidDataException;
+import com.devsuperior.aula.services.exceptions.ResourceNotFoundException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 @Service //registrando como um componente do sistema de Servico
 public class ProductService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ProductService.class);
+
+    //Quantos erros do import sao devolvidos na resposta (os demais so entram na contagem de rejeitados)
+    private static final int MAX_IMPORT_ERRORS = 100;
+
+    //Maior pagina aceita na listagem por cursor
+    private static final int MAX_CURSOR_LIMIT = 1000;
+
+    //Maior quantidade de resultados de GET /products/search
+    private static final int MAX_SEARCH_LIMIT = 100;
+
     //Injetando (colocando como dependencia) o ProductRepository
     @Autowired
     private ProductRepository repository; //para evitar de termos esse cara como null colocamos o autowired pra fazer a injecao de dependecia automatica e nao apontar para o null
 
+    //Busca por nome em memoria usada no GET /products/search
+    @Autowired
+    private ProductSearchIndex searchIndex;
+
+    //Valida os ids das categorias e fornece os nomes delas sem ir ao banco
+    @Autowired
+    private CategoryCache categoryCache;
+
+    //Shard de cada produto (com app.sharding.shards > 1) e leitura em paralelo de todos os shards
+    @Autowired
+    private ProductShards shards;
+
+    //Usado no insertAll para limpar o contexto de persistencia depois de cada chunk e nao acumular entidades na memoria
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    //Avisa quem mantem indices em memoria (ex: CategoryProductIndex) sobre os produtos gravados
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    //Usado no importStream para ler um produto por linha do NDJSON
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.products.batch.chunk-size:500}")
+    private int chunkSize;
+
+    //De quantas em quantas linhas o importStream loga o progresso
+    @Value("${app.products.import.progress-interval:10000}")
+    private long progressInterval;
+
+    //Busca um produto com as categorias numa consulta so, direto em DTO (sem entidades no contexto de persistencia).
+    //Com sharding a consulta vai so para o shard do id
+    @Transactional(readOnly = true)
+    public ProductDTO findById(Long id) {
+        List<ProductDTO> result = shards.on(shards.shardOf(id), () -> groupRows(repository.findRowsById(id)));
+        if (result.isEmpty()) {
+            throw new ResourceNotFoundException("Produto nao encontrado: " + id);
+        }
+        return result.get(0);
+    }
+
+    //Listagem paginada em um numero fixo de consultas, seja qual for o tamanho da pagina:
+    //ids da pagina + total, e depois os produtos desses ids com as categorias numa consulta so
+    @Transactional(readOnly = true)
+    public Page<ProductDTO> findAll(Pageable pageable) {
+        if (shards.isSharded()) {
+            return findAllAcrossShards(pageable);
+        }
+        Page<Long> ids = repository.findPageIds(pageable);
+        List<ProductDTO> content = findWithCategories(ids.getContent());
+        return new PageImpl<>(content, pageable, ids.getTotalElements());
+    }
+
+    //Com sharding cada shard devolve os seus primeiros offset + size ids e a pagina sai da juncao deles.
+    //Isso so funciona ordenando pelo id (os outros campos nao vem na consulta) e custa O(offset) por shard:
+    //para percorrer o catalogo inteiro o caminho eh o cursor (findAfter)
+    private Page<ProductDTO> findAllAcrossShards(Pageable pageable) {
+        for (Sort.Order order : pageable.getSort()) {
+            if (!order.getProperty().equals("id")) {
+                throw new InvalidDataException("Com sharding a listagem paginada so pode ser ordenada por id");
+            }
+        }
+        Sort sort = pageable.getSort().isSorted() ? pageable.getSort() : Sort.by("id");
+        int end = (int) Math.min(pageable.getOffset() + pageable.getPageSize(), Integer.MAX_VALUE);
+        List<Page<Long>> pages = shards.fanOut(shard -> repository.findPageIds(PageRequest.of(0, end, sort)));
+
+        long total = 0;
+        List<Long> ids = new ArrayList<>();
+        for (Page<Long> page : pages) {
+            total += page.getTotalElements();
+            ids.addAll(page.getContent());
+        }
+        ids.sort(sort.getOrderFor("id").isDescending() ? Comparator.reverseOrder() : Comparator.naturalOrder());
+        int from = (int) Math.min(pageable.getOffset(), ids.size());
+        List<Long> pageIds = new ArrayList<>(ids.subList(from, Math.min(end, ids.size())));
+        return new PageImpl<>(findWithCategories(pageIds), pageable, total);
+    }
+
+    //Listagem por cursor (keyset) para quem percorre o catalogo inteiro: cada pagina eh uma busca pela chave primaria a partir
+    //do ultimo id da pagina anterior, entao todas custam o mesmo. O cursor eh opaco para o cliente (o id codificado em base64).
+    //Busca limit + 1 ids para saber se existe proxima pagina sem precisar de COUNT.
+    //Com sharding cada shard devolve os seus limit + 1 proximos ids, em paralelo, e ficam os menores do conjunto
+    @Transactional(readOnly = true)
+    public ProductCursorPageDTO findAfter(String after, int limit, Long categoryId) {
+        long afterId = decodeCursor(after);
+        int size = Math.min(Math.max(limit, 1), MAX_CURSOR_LIMIT);
+        List<Long> ids = new ArrayList<>();
+        for (List<Long> shardIds : shards.fanOut(shard -> categoryId == null
+                ? repository.findIdsAfter(afterId, Limit.of(size + 1))
+                : repository.findIdsByCategoryAfter(categoryId, afterId, Limit.of(size + 1)))) {
+            ids.addAll(shardIds);
+        }
+        if (shards.isSharded()) {
+            ids.sort(Comparator.naturalOrder());
+            ids = ids.subList(0, Math.min(ids.size(), size + 1));
+        }
+
+        String nextCursor = null;
+        if (ids.size() > size) {
+            ids = ids.subList(0, size);
+            nextCursor = encodeCursor(ids.get(size - 1));
+        }
+        return new ProductCursorPageDTO(findWithCategories(ids), nextCursor);
+    }
+
+    //Busca por nome sem diferenciar maiusculas e acentos, com cada palavra valendo tambem como prefixo ("lord of" acha
+    //"The Lord of the Rings", "mac" acha "Macbook Pro"). Responde direto do ProductSearchIndex, sem ir ao banco
+    public List<ProductSearchResultDTO> search(String query, int limit) {
+        return searchIndex.search(query, Math.min(limit, MAX_SEARCH_LIMIT));
+    }
+
+    //Produtos dos ids informados, na mesma ordem, com as categorias numa consulta so
+    @Transactional(readOnly = true)
+    public List<ProductDTO> findByIds(List<Long> ids) {
+        return findWithCategories(ids);
+    }
+
+    //Carrega os produtos dos ids com as categorias numa consulta so e devolve na mesma ordem dos ids (o IN nao garante ordem).
+    //Ids sem produto (ex: apagado entre a busca dos ids e esta consulta) ficam de fora da lista.
+    //A consulta devolve linhas planas (ProductCategoryRow) e nao entidades: como as leituras rodam em transacao read-only,
+    //o Hibernate nao faz flush nem guarda snapshot de Product/Category, e nao existe a copia entidade -> DTO depois.
+    //Com sharding os ids sao separados por shard e cada shard busca os seus em paralelo
+    private List<ProductDTO> findWithCategories(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Integer, List<Long>> idsByShard = shards.groupByShard(ids);
+        Map<Long, ProductDTO> products = new HashMap<>();
+        for (List<ProductDTO> shardProducts : shards.fanOut(shard -> idsByShard.containsKey(shard)
+                ? groupRows(repository.findRowsByIdIn(idsByShard.get(shard))) : List.<ProductDTO>of())) {
+            for (ProductDTO dto : shardProducts) {
+                products.put(dto.getId(), dto);
+            }
+        }
+        List<ProductDTO> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            ProductDTO dto = products.get(id);
+            if (dto != null) {
+                result.add(dto);
+            }
+        }
+        return result;
+    }
+
+    //Junta as linhas (produto x categoria) num ProductDTO por produto, na ordem em que os produtos aparecem
+    private List<ProductDTO> groupRows(List<ProductCategoryRow> rows) {
+        Map<Long, ProductDTO> products = new LinkedHashMap<>();
+        for (ProductCategoryRow row : rows) {
+            ProductDTO dto = products.computeIfAbsent(row.getProductId(),
+                    id -> new ProductDTO(id, row.getProductName(), row.getPrice()));
+            if (row.getCategoryId() != null) {
+                dto.getCategories().add(new CategoryDTO(row.getCategoryId(), row.getCategoryName()));
+            }
+        }
+        return new ArrayList<>(products.values());
+    }
+
+    private String encodeCursor(Long id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(("p:" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (value.startsWith("p:")) {
+                return Long.parseLong(value.substring(2));
+            }
+        }
+        catch (IllegalArgumentException e) {
+            //cai no erro abaixo (NumberFormatException tambem eh IllegalArgumentException)
+        }
+        throw new InvalidDataException("Cursor invalido: " + cursor);
+    }
+
     //Metodo que me retorna como resposta um ProductDTO chamado insert que recebe um ProductDTO
     //tudo isso abaixo para criar uma estrutura de produto associado com suas categorias
+    //Roda numa transacao (a do shard do produto) para o ProductsInsertedEvent so ser entregue aos indices depois do commit
     public ProductDTO insert(ProductDTO dto) {
         //Aprendemos que o objeto JSON recebido na requisicao, o Spring tem que instanciar o objeto java a partir do JSON
         //Convertendo o objeto ProductDTO em Product para salvar no banco com o JPA
-        Product entity = new Product(); //Criei dentro da memoria um objeto Product que vai ter id nome e preco e uma lista de categories
-        //Copiando os dados do DTO para entidade
+        validateForInsert(dto);
+        //Com sharding o id eh reservado antes de abrir a transacao, porque eh ele que escolhe o shard onde o produto fica
+        Long id = shards.isSharded() ? shards.nextId() : null;
+        return shards.inTransaction(shardOf(id), () -> {
+            Product entity = new Product(); //Criei dentro da memoria um objeto Product que vai ter id nome e preco e uma lista de categories
+            entity.setId(id);
+            //Copiando os dados do DTO para entidade
+            copyDtoToEntity(dto, entity);
+
+            //Salvando essa entidade no banco. persist e nao repository.save: com o id ja preenchido (sharding) o save
+            //acharia que o produto ja existe e faria merge, com um SELECT antes do INSERT
+            entityManager.persist(entity);
+
+            PersistenceMetrics.recordCategoryRows(entity.getCategories().size());
+
+            //retorna o dto correspondente dessa entidade salva
+            ProductDTO result = new ProductDTO(entity);
+            eventPublisher.publishEvent(new ProductsInsertedEvent(List.of(result)));
+            return result;
+        });
+    }
+
+    //Insere uma lista de produtos em pedacos de chunkSize itens, cada pedaco na sua propria transacao.
+    //Como o id vem de uma sequence pooled, o Hibernate consegue mandar os INSERTs de tb_product e tb_product_category em batch.
+    //Itens invalidos (ex: categoria inexistente) ou que o banco recusar viram erros com a posicao deles na lista, sem derrubar o resto do lote.
+    public ProductBatchResultDTO insertAll(List<ProductDTO> dtos) {
+        ProductBatchResultDTO result = new ProductBatchResultDTO();
+        for (int from = 0; from < dtos.size(); from += chunkSize) {
+            int to = Math.min(from + chunkSize, dtos.size());
+            insertChunk(dtos.subList(from, to), from, result.getInserted(), result.getErrors());
+        }
+        return result;
+    }
+
+    //Import em streaming de NDJSON (um produto por linha): le uma linha por vez do corpo da requisicao e grava em chunks.
+    //Diferente do insertAll, nunca existe a lista inteira na memoria: so o chunk atual, entao o heap fica estavel seja qual for o tamanho do arquivo.
+    //O index dos erros eh a posicao do registro no arquivo (linhas em branco nao contam), comecando em 0.
+    public ProductImportSummaryDTO importStream(InputStream input) throws IOException {
+        long start = System.nanoTime();
+        ObjectReader reader = objectMapper.readerFor(ProductDTO.class);
+        BufferedReader lines = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+
+        List<ProductDTO> chunk = new ArrayList<>(chunkSize);
+        List<ProductDTO> inserted = new ArrayList<>(chunkSize);
+        List<ProductBatchErrorDTO> chunkErrors = new ArrayList<>();
+        List<ProductBatchErrorDTO> errors = new ArrayList<>();
+        long insertedCount = 0;
+        long rejectedCount = 0;
+        long nextProgress = progressInterval;
+        int record = 0;
+        int chunkOffset = 0;
+
+        String line;
+        while ((line = lines.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            ProductDTO dto;
+            try {
+                dto = reader.readValue(line);
+                //Uma linha com o literal null eh JSON valido, mas nao eh um produto
+                if (dto == null) {
+                    chunkErrors.add(new ProductBatchErrorDTO(record, "JSON invalido: esperado um objeto, veio null"));
+                }
+            }
+            catch (JsonProcessingException e) {
+                dto = null;
+                chunkErrors.add(new ProductBatchErrorDTO(record, "JSON invalido: " + e.getOriginalMessage()));
+            }
+            record++;
+
+            //Os erros do insertChunk usam offset + posicao no chunk, entao uma linha invalida fecha o chunk atual para as posicoes continuarem certas
+            if (dto != null) {
+                chunk.add(dto);
+            }
+            if (chunk.size() == chunkSize || dto == null) {
+                insertChunk(chunk, chunkOffset, inserted, chunkErrors);
+                insertedCount += inserted.size();
+                rejectedCount += chunkErrors.size();
+                keepFirstErrors(errors, chunkErrors);
+                chunk.clear();
+                inserted.clear();
+                chunkErrors.clear();
+                chunkOffset = record;
+            }
+            if (record >= nextProgress) {
+                logger.info("Import de produtos: {} linhas lidas, {} gravadas, {} rejeitadas", record, insertedCount, rejectedCount);
+                nextProgress += progressInterval;
+            }
+        }
+        if (!chunk.isEmpty()) {
+            insertChunk(chunk, chunkOffset, inserted, chunkErrors);
+            insertedCount += inserted.size();
+            rejectedCount += chunkErrors.size();
+            keepFirstErrors(errors, chunkErrors);
+        }
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        double rowsPerSecond = elapsedMillis == 0 ? insertedCount : insertedCount * 1000.0 / elapsedMillis;
+        logger.info("Import de produtos concluido: {} gravados, {} rejeitados em {} ms ({} linhas/s)",
+                insertedCount, rejectedCount, elapsedMillis, String.format("%.1f", rowsPerSecond));
+        return new ProductImportSummaryDTO(insertedCount, rejectedCount, elapsedMillis, rowsPerSecond, errors);
+    }
+
+    private void keepFirstErrors(List<ProductBatchErrorDTO> errors, List<ProductBatchErrorDTO> newErrors) {
+        for (ProductBatchErrorDTO error : newErrors) {
+            if (errors.size() == MAX_IMPORT_ERRORS) {
+                return;
+            }
+            errors.add(error);
+        }
+    }
+
+    //Grava um pedaco do lote. offset eh a posicao do primeiro item do pedaco na lista original (usada nas mensagens de erro).
+    //Com sharding os itens ja recebem o id aqui e cada shard grava os seus numa transacao propria (e refaz item por item
+    //so os seus, se o banco recusar algum). Os inseridos voltam sempre na ordem do pedaco
+    void insertChunk(List<ProductDTO> chunk, int offset, List<ProductDTO> inserted, List<ProductBatchErrorDTO> errors) {
+        List<Integer> validIndexes = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            String error = validate(chunk.get(i));
+            if (error != null) {
+                errors.add(new ProductBatchErrorDTO(offset + i, error));
+            }
+            else {
+                validIndexes.add(i);
+            }
+        }
+        if (validIndexes.isEmpty()) {
+            return;
+        }
+
+        Long[] ids = new Long[chunk.size()];
+        Map<Integer, List<Integer>> indexesByShard = new TreeMap<>();
+        for (Integer i : validIndexes) {
+            ids[i] = shards.isSharded() ? shards.nextId() : null;
+            indexesByShard.computeIfAbsent(shardOf(ids[i]), shard -> new ArrayList<>()).add(i);
+        }
+
+        ProductDTO[] saved = new ProductDTO[chunk.size()];
+        indexesByShard.forEach((shard, indexes) -> {
+            try {
+                keepSaved(saved, indexes, saveInTransaction(shard, chunk, ids, indexes));
+            }
+            catch (DataAccessException e) {
+                //O banco recusou algum item e a transacao do pedaco inteiro voltou atras.
+                //Regrava item por item para descobrir qual falhou e salvar os outros normalmente.
+                for (Integer i : indexes) {
+                    try {
+                        keepSaved(saved, List.of(i), saveInTransaction(shard, chunk, ids, List.of(i)));
+                    }
+                    catch (DataAccessException itemError) {
+                        errors.add(new ProductBatchErrorDTO(offset + i, itemError.getMostSpecificCause().getMessage()));
+                    }
+                }
+            }
+        });
+        for (ProductDTO dto : saved) {
+            if (dto != null) {
+                inserted.add(dto);
+            }
+        }
+    }
+
+    private void keepSaved(ProductDTO[] saved, List<Integer> indexes, List<ProductDTO> dtos) {
+        for (int i = 0; i < indexes.size(); i++) {
+            saved[indexes.get(i)] = dtos.get(i);
+        }
+    }
+
+    //Shard do produto com esse id; sem sharding o id so existe depois do persist e o shard eh sempre o 0
+    private int shardOf(Long id) {
+        return id == null ? 0 : shards.shardOf(id);
+    }
+
+    //ids[i] eh o id ja reservado do item i (com sharding) ou null (o id vem da sequence no persist)
+    private List<ProductDTO> saveInTransaction(int shard, List<ProductDTO> chunk, Long[] ids, List<Integer> indexes) {
+        return shards.inTransaction(shard, () -> {
+            List<Product> entities = new ArrayList<>(indexes.size());
+            for (Integer i : indexes) {
+                Product entity = new Product();
+                entity.setId(ids[i]);
+                copyDtoToEntity(chunk.get(i), entity);
+                entityManager.persist(entity); //persist, como no insert: com o id ja preenchido o saveAll faria merge
+                entities.add(entity);
+            }
+            //manda os INSERTs agora (em batch) para o erro de constraint aparecer aqui dentro. O EntityManager eh usado direto
+            //(sem o proxy de um @Repository), entao a excecao do Hibernate eh traduzida aqui para DataAccessException
+            try {
+                entityManager.flush();
+            }
+            catch (RuntimeException e) {
+                DataAccessException translated = EntityManagerFactoryUtils.convertJpaAccessExceptionIfPossible(e);
+                throw translated != null ? translated : e;
+            }
+
+            List<ProductDTO> saved = new ArrayList<>(entities.size());
+            for (Product entity : entities) {
+                saved.add(new ProductDTO(entity));
+                PersistenceMetrics.recordCategoryRows(entity.getCategories().size());
+            }
+            eventPublisher.publishEvent(new ProductsInsertedEvent(saved));
+            entityManager.clear(); //solta as entidades ja gravadas para o contexto de persistencia nao crescer com o lote
+            return saved;
+        });
+    }
+
+    //Mesma validacao do insert, para quem precisa recusar o produto antes de grava-lo (ex: ProductIngestionQueue)
+    public void validateForInsert(ProductDTO dto) {
+        String error = validate(dto);
+        if (error != null) {
+            throw new InvalidDataException(error);
+        }
+    }
+
+    //Retorna a mensagem de erro do item, ou null se ele puder ser gravado
+    private String validate(ProductDTO dto) {
+        if (dto == null) {
+            return "Produto nulo";
+        }
+        if (dto.getName() == null || dto.getName().isBlank()) {
+            return "Nome do produto e obrigatorio";
+        }
+        if (dto.getPrice() == null || dto.getPrice() < 0) {
+            return "Preco do produto deve ser positivo";
+        }
+        for (CategoryDTO catDTO : dto.getCategories()) {
+            if (catDTO == null || catDTO.getId() == null) {
+                return "Categoria sem id";
+            }
+            if (categoryCache.get(catDTO.getId()) == null) {
+                return "Categoria nao encontrada: " + catDTO.getId();
+            }
+        }
+        return null;
+    }
+
+    private void copyDtoToEntity(ProductDTO dto, Product entity) {
         entity.setName(dto.getName());
         entity.setPrice(dto.getPrice());
         //Criando as categorias e aninhar
@@ -31,17 +499,10 @@ public class ProductService {
             Category cat = new Category();
             cat.setId(catDTO.getId());
             // cat.setName(catDTO.getName()); nao funciona pois o cat nao eh no caso uma entidade monitorada pelo JPA
+            // entao o nome vem do CategoryCache (que ja validou o id no validate), sem um SELECT por categoria
+            cat.setName(categoryCache.get(catDTO.getId()).getName());
             entity.getCategories().add(cat); //pega a lista de categorias e adiciono o objeto cat da iteracao nessa lista
         }
-
-        //Salvando essa entidade no banco e armazenando ela na variavel entity
-        entity = repository.save(entity); // aqui vai dar NullPointerException se não tiver sido injetado corretamente a dependencia ProductRepository no construtor de ProductService.
-        // Entao na hora que essa classe ProductService for criada vaiu injetar automaticamente uma instância do ProductRepository no campo private ProductRepository repository;
-
-        //retorna o dto correspondente dessa entidade salva
-        return new ProductDTO(entity);
-
-
     }
 }
 
@@ -114,6 +575,17 @@ Você precisa garantir que:
     @Service
     public class ProductService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ProductService.class);
+
+    //Quantos erros do import sao devolvidos na resposta (os demais so entram na contagem de rejeitados)
+    private static final int MAX_IMPORT_ERRORS = 100;
+
+    //Maior pagina aceita na listagem por cursor
+    private static final int MAX_CURSOR_LIMIT = 1000;
+
+    //Maior quantidade de resultados de GET /products/search
+    private static final int MAX_SEARCH_LIMIT = 100;
+
         @Autowired
         private ProductRepository repository;
 
@@ -127,6 +599,17 @@ Você precisa garantir que:
     @Service
     public class ProductService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ProductService.class);
+
+    //Quantos erros do import sao devolvidos na resposta (os demais so entram na contagem de rejeitados)
+    private static final int MAX_IMPORT_ERRORS = 100;
+
+    //Maior pagina aceita na listagem por cursor
+    private static final int MAX_CURSOR_LIMIT = 1000;
+
+    //Maior quantidade de resultados de GET /products/search
+    private static final int MAX_SEARCH_LIMIT = 100;
+
         private final ProductRepository repository;
 
         public ProductService(ProductRepository repository) {
@@ -0,0 +1,199 @@
+package com.devsuperior.aula.services;
+
+import com.devsuperior.aula.dto.CategoryDTO;
+import com.devsuperior.aula.dto.ProductDTO;
+import com.devsuperior.aula.services.events.ProductsInsertedEvent;
+import com.devsuperior.aula.services.events.ProductsModifiedEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+//Cache das respostas ja serializadas dos GETs de produtos e categorias (usado pelo ResponseCacheFilter).
+//Cada entrada guarda os bytes, o Content-Type, o ETag e as tags do que ela contem:
+//  product:{id}  - GET /products/{id}
+//  category:{id} - GET /categories/{id}/products
+//  products      - listagens, paginas, busca e estatisticas (qualquer insert pode muda-las)
+//Eh limitado pelo total de bytes (quando passa, sai a entrada usada ha mais tempo).
+//Depois de um insert sao invalidadas so as tags afetadas: os novos produtos, as categorias deles e as colecoes
+//(e o mesmo para os produtos e categorias alterados por uma operacao em massa).
+//O contador version evita guardar uma resposta montada antes de uma invalidacao que terminou enquanto ela era gerada
+@Component
+public class ResponseCache implements MeterBinder {
+
+    public static final String COLLECTIONS_TAG = "products";
+
+    @Value("${app.http.cache.max-bytes:16777216}")
+    private long maxBytes;
+
+    private final AtomicLong version = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private long totalBytes;
+
+    //LinkedHashMap em ordem de acesso: o primeiro elemento eh sempre o menos usado recentemente
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Set<String>> keysByTag = new HashMap<>();
+
+    public static String productTag(Long id) {
+        return "product:" + id;
+    }
+
+    public static String categoryTag(Long id) {
+        return "category:" + id;
+    }
+
+    public Entry get(String key) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry == null) {
+            misses.increment();
+        }
+        else {
+            hits.increment();
+        }
+        return entry;
+    }
+
+    //Versao atual, lida antes de gerar a resposta e devolvida no put
+    public long version() {
+        return version.get();
+    }
+
+    //Guarda a resposta, a nao ser que alguma invalidacao tenha acontecido depois de readVersion
+    public void put(String key, Entry entry, long readVersion) {
+        synchronized (entries) {
+            if (version.get() != readVersion) {
+                return;
+            }
+            remove(key);
+            entries.put(key, entry);
+            totalBytes += entry.body().length;
+            for (String tag : entry.tags()) {
+                keysByTag.computeIfAbsent(tag, t -> new HashSet<>()).add(key);
+            }
+            while (totalBytes > maxBytes && !entries.isEmpty()) {
+                remove(entries.keySet().iterator().next());
+                evictions.increment();
+            }
+        }
+    }
+
+    public void invalidate(Collection<String> tags) {
+        synchronized (entries) {
+            version.incrementAndGet();
+            for (String tag : tags) {
+                Set<String> keys = keysByTag.remove(tag);
+                if (keys != null) {
+                    for (String key : Set.copyOf(keys)) {
+                        remove(key);
+                    }
+                }
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            version.incrementAndGet();
+            entries.clear();
+            keysByTag.clear();
+            totalBytes = 0;
+        }
+    }
+
+    //AFTER_COMPLETION roda depois de todos os listeners AFTER_COMMIT, entao os indices em memoria
+    //(busca, categoria -> produtos, estatisticas) ja estao atualizados quando as respostas antigas saem daqui
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION)
+    public void onProductsInserted(ProductsInsertedEvent event) {
+        Set<String> tags = new HashSet<>();
+        tags.add(COLLECTIONS_TAG);
+        for (ProductDTO product : event.getProducts()) {
+            tags.add(productTag(product.getId()));
+            for (CategoryDTO category : product.getCategories()) {
+                tags.add(categoryTag(category.getId()));
+            }
+        }
+        invalidate(tags);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION)
+    public void onProductsModified(ProductsModifiedEvent event) {
+        Set<String> tags = new HashSet<>();
+        tags.add(COLLECTIONS_TAG);
+        for (Long productId : event.getProductIds()) {
+            tags.add(productTag(productId));
+        }
+        for (Long categoryId : event.getCategoryIds()) {
+            tags.add(categoryTag(categoryId));
+        }
+        invalidate(tags);
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long bytes() {
+        synchronized (entries) {
+            return totalBytes;
+        }
+    }
+
+    public void recordNotModified() {
+        notModified.increment();
+    }
+
+    //Chamado com o lock de entries
+    private void remove(String key) {
+        Entry removed = entries.remove(key);
+        if (removed == null) {
+            return;
+        }
+        totalBytes -= removed.body().length;
+        for (String tag : removed.tags()) {
+            Set<String> keys = keysByTag.get(tag);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    keysByTag.remove(tag);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", hits, LongAdder::sum).tag("cache", "responses").tag("result", "hit").register(registry);
+        FunctionCounter.builder("cache.gets", misses, LongAdder::sum).tag("cache", "responses").tag("result", "miss").register(registry);
+        FunctionCounter.builder("cache.evictions", evictions, LongAdder::sum).tag("cache", "responses").register(registry);
+        FunctionCounter.builder("http.responses.not_modified", notModified, LongAdder::sum)
+                .description("Respostas 304 dadas pelo cache de respostas sem chegar no controller").register(registry);
+        Gauge.builder("cache.size", this, ResponseCache::size).tag("cache", "responses").register(registry);
+        Gauge.builder("cache.memory", this, ResponseCache::bytes).tag("cache", "responses").baseUnit("bytes").register(registry);
+    }
+
+    public record Entry(byte[] body, String contentType, String etag, Set<String> tags) {
+    }
+}
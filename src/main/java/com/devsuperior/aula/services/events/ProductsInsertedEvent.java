@@ -0,0 +1,20 @@
+package com.devsuperior.aula.services.events;
+
+import com.devsuperior.aula.dto.ProductDTO;
+
+import java.util.List;
+
+//Publicado pelo ProductService dentro da transacao que gravou os produtos.
+//Quem mantem estruturas em memoria escuta com @TransactionalEventListener para so atualizar depois do commit
+public class ProductsInsertedEvent {
+
+    private final List<ProductDTO> products;
+
+    public ProductsInsertedEvent(List<ProductDTO> products) {
+        this.products = products;
+    }
+
+    public List<ProductDTO> getProducts() {
+        return products;
+    }
+}
@@ -0,0 +1,31 @@
+package com.devsuperior.aula.services.events;
+
+import java.util.Set;
+
+//Publicado dentro da transacao de uma operacao em massa que alterou produtos ja existentes (vinculo de categoria, preco).
+//categoryIds sao todas as categorias cujos produtos mudaram, inclusive as outras categorias dos produtos alterados.
+//pricesChanged indica se os precos mudaram (quando so ha vinculos novos, nome e preco dos produtos continuam iguais)
+public class ProductsModifiedEvent {
+
+    private final Set<Long> productIds;
+    private final Set<Long> categoryIds;
+    private final boolean pricesChanged;
+
+    public ProductsModifiedEvent(Set<Long> productIds, Set<Long> categoryIds, boolean pricesChanged) {
+        this.productIds = productIds;
+        this.categoryIds = categoryIds;
+        this.pricesChanged = pricesChanged;
+    }
+
+    public Set<Long> getProductIds() {
+        return productIds;
+    }
+
+    public Set<Long> getCategoryIds() {
+        return categoryIds;
+    }
+
+    public boolean isPricesChanged() {
+        return pricesChanged;
+    }
+}
@@ -0,0 +1,9 @@
+package com.devsuperior.aula.services.exceptions;
+
+//Lancada quando os dados recebidos nao podem ser gravados (ex: produto sem nome ou com uma categoria que nao existe)
+public class InvalidDataException extends RuntimeException {
+
+    public InvalidDataException(String msg) {
+        super(msg);
+    }
+}
@@ -0,0 +1,9 @@
+package com.devsuperior.aula.services.exceptions;
+
+//Lancada quando a fila de gravacao assincrona esta cheia (ou parando) e o cliente deve tentar de novo mais tarde
+public class QueueFullException extends RuntimeException {
+
+    public QueueFullException(String msg) {
+        super(msg);
+    }
+}
@@ -0,0 +1,9 @@
+package com.devsuperior.aula.services.exceptions;
+
+//Lancada quando o recurso pedido (ex: o produto de GET /products/{id}) nao existe
+public class ResourceNotFoundException extends RuntimeException {
+
+    public ResourceNotFoundException(String msg) {
+        super(msg);
+    }
+}
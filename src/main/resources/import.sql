@@ -2,10 +2,13 @@ INSERT INTO tb_category (name) VALUES ('Livros');
 INSERT INTO tb_category (name) VALUES ('Eletrônicos');
 INSERT INTO tb_category (name) VALUES ('Computadores');
 
-INSERT INTO tb_product (name, price) VALUES ('The Lord of the Rings', 90.5);
-INSERT INTO tb_product (name, price) VALUES ('Smart TV', 2190.0);
-INSERT INTO tb_product (name, price) VALUES ('Macbook Pro', 1250.0);
-INSERT INTO tb_product (name, price) VALUES ('PC Gamer', 1200.0);
+INSERT INTO tb_product (id, name, price) VALUES (1, 'The Lord of the Rings', 90.5);
+INSERT INTO tb_product (id, name, price) VALUES (2, 'Smart TV', 2190.0);
+INSERT INTO tb_product (id, name, price) VALUES (3, 'Macbook Pro', 1250.0);
+INSERT INTO tb_product (id, name, price) VALUES (4, 'PC Gamer', 1200.0);
+
+-- Os ids acima foram informados na mao, entao a sequence precisa comecar depois deles (a alocacao eh de 50 em 50)
+ALTER SEQUENCE tb_product_seq RESTART WITH 101;
 
 INSERT INTO tb_product_category (product_id, category_id) VALUES (1, 1);
 INSERT INTO tb_product_category (product_id, category_id) VALUES (2, 2);
@@ -0,0 +1,119 @@
+package com.devsuperior.aula;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//Compara POST /products com o Tomcat em platform threads e em virtual threads com muita concorrencia.
+//Cada modo sobe a aplicacao numa porta livre, aquece e depois dispara REQUESTS requisicoes com CONCURRENCY clientes ao mesmo tempo.
+//Roda com: ./mvnw -Pload-tests test
+@Tag("load")
+class ProductInsertLoadTests {
+
+	private static final int CONCURRENCY = 500;
+	private static final int REQUESTS = 10_000;
+	private static final int WARMUP_REQUESTS = 2_000;
+
+	private static final String BODY = """
+			{"name": "Produto de carga", "price": 10.0, "categories": [{"id": 1}, {"id": 3}]}
+			""";
+
+	@Test
+	void compareThroughputAndLatencyOfPlatformAndVirtualThreads() throws Exception {
+		Result platform = run(false);
+		Result virtual = run(true);
+
+		System.out.println("POST /products com " + CONCURRENCY + " clientes simultaneos e " + REQUESTS + " requisicoes");
+		System.out.println("platform threads: " + platform);
+		System.out.println("virtual threads:  " + virtual);
+		//com muita concorrencia o modo platform pode recusar conexoes (fila do Tomcat cheia); o teste so exige menos de 1% de erros
+		Assertions.assertTrue(platform.errors < REQUESTS / 100, "platform: " + platform);
+		Assertions.assertTrue(virtual.errors < REQUESTS / 100, "virtual: " + virtual);
+	}
+
+	private Result run(boolean virtualThreads) throws Exception {
+		ConfigurableApplicationContext context = SpringApplication.run(AulaApplication.class,
+				"--server.port=0",
+				"--spring.datasource.url=jdbc:h2:mem:load-" + virtualThreads,
+				"--spring.threads.virtual.enabled=" + virtualThreads,
+				"--logging.level.root=WARN");
+		try {
+			int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+			URI uri = URI.create("http://localhost:" + port + "/products");
+			try (HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build()) {
+				fire(client, uri, WARMUP_REQUESTS);
+				return fire(client, uri, REQUESTS);
+			}
+		}
+		finally {
+			context.close();
+		}
+	}
+
+	//Os clientes rodam em virtual threads para o gerador de carga nao ser o gargalo; um Semaphore segura CONCURRENCY requisicoes em voo
+	private Result fire(HttpClient client, URI uri, int requests) throws Exception {
+		HttpRequest request = HttpRequest.newBuilder(uri).header("Content-Type", "application/json")
+				.timeout(Duration.ofSeconds(30)).POST(HttpRequest.BodyPublishers.ofString(BODY)).build();
+		long[] latencies = new long[requests];
+		AtomicInteger next = new AtomicInteger();
+		AtomicInteger errors = new AtomicInteger();
+
+		long start = System.nanoTime();
+		try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int c = 0; c < CONCURRENCY; c++) {
+				futures.add(clients.submit(() -> {
+					int i;
+					while ((i = next.getAndIncrement()) < requests) {
+						long sent = System.nanoTime();
+						try {
+							HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+							if (response.statusCode() != 201) {
+								errors.incrementAndGet();
+							}
+						}
+						catch (Exception e) {
+							errors.incrementAndGet();
+						}
+						latencies[i] = System.nanoTime() - sent;
+					}
+					return null;
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		}
+		long elapsed = System.nanoTime() - start;
+
+		Arrays.sort(latencies);
+		return new Result(requests * 1_000_000_000.0 / elapsed,
+				latencies[requests / 2] / 1_000_000.0,
+				latencies[(int) (requests * 0.99) - 1] / 1_000_000.0,
+				errors.get());
+	}
+
+	private record Result(double throughput, double p50Millis, double p99Millis, int errors) {
+
+		@Override
+		public String toString() {
+			return String.format("%.0f req/s, p50 %.1f ms, p99 %.1f ms, %d erros", throughput, p50Millis, p99Millis, errors);
+		}
+	}
+}
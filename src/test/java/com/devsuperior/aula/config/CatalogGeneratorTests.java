@@ -0,0 +1,70 @@
+package com.devsuperior.aula.config;
+
+import com.devsuperior.aula.dto.CategoryDTO;
+import com.devsuperior.aula.dto.ProductDTO;
+import com.devsuperior.aula.services.CategoryProductIndex;
+import com.devsuperior.aula.services.ProductSearchIndex;
+import com.devsuperior.aula.services.ProductService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:cataloggeneratortests",
+		"app.generator.products=5000",
+		"app.generator.categories=50",
+		"app.generator.max-categories-per-product=5",
+		"app.generator.batch-size=1000"
+})
+class CatalogGeneratorTests {
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private ProductSearchIndex searchIndex;
+
+	@Autowired
+	private CategoryProductIndex categoryProductIndex;
+
+	@Test
+	void generatorShouldLoadSkewedCatalogAndKeepIndexesAndSequenceConsistent() {
+		Assertions.assertEquals(5004L, count("SELECT COUNT(*) FROM tb_product"));
+		Assertions.assertEquals(53L, count("SELECT COUNT(*) FROM tb_category"));
+		//todo produto gerado tem entre 1 e 5 categorias
+		Assertions.assertEquals(0L, count("SELECT COUNT(*) FROM (SELECT product_id FROM tb_product_category "
+				+ "GROUP BY product_id HAVING COUNT(*) > 5) t"));
+		Assertions.assertEquals(0L, count("SELECT COUNT(*) FROM tb_product p WHERE NOT EXISTS "
+				+ "(SELECT 1 FROM tb_product_category pc WHERE pc.product_id = p.id)"));
+
+		//Zipf: a categoria mais popular tem bem mais produtos que a menos popular, e quanto mais categorias menos produtos
+		List<Long> perCategory = jdbcTemplate.queryForList("SELECT COUNT(*) FROM tb_product_category WHERE category_id > 3 "
+				+ "GROUP BY category_id ORDER BY COUNT(*) DESC", Long.class);
+		Assertions.assertTrue(perCategory.get(0) > 10 * perCategory.get(perCategory.size() - 1));
+		Assertions.assertTrue(productsWithCategories(1) > productsWithCategories(2));
+		Assertions.assertTrue(productsWithCategories(2) > productsWithCategories(5));
+
+		Assertions.assertEquals(5004, searchIndex.size());
+		Assertions.assertEquals(count("SELECT COUNT(*) FROM tb_product_category"), categoryProductIndex.entries());
+
+		ProductDTO dto = new ProductDTO(null, "Depois do gerador", 10.0);
+		dto.getCategories().add(new CategoryDTO(53L, null));
+		Assertions.assertTrue(productService.insert(dto).getId() > 5004L);
+	}
+
+	private long productsWithCategories(int categories) {
+		return count("SELECT COUNT(*) FROM (SELECT product_id FROM tb_product_category GROUP BY product_id HAVING COUNT(*) = "
+				+ categories + ") t");
+	}
+
+	private long count(String sql) {
+		return jdbcTemplate.queryForObject(sql, Long.class);
+	}
+}
@@ -0,0 +1,50 @@
+package com.devsuperior.aula.config;
+
+import com.devsuperior.aula.AulaApplication;
+import com.devsuperior.aula.dto.CategoryDTO;
+import com.devsuperior.aula.dto.ProductDTO;
+import com.devsuperior.aula.services.ProductService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Path;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:catalogsnapshottests")
+class CatalogSnapshotTests {
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ProductService productService;
+
+	@Test
+	void restoreShouldStartWithTheExportedCatalogWithoutRunningImportSql(@TempDir Path dir) throws Exception {
+		ProductDTO dto = new ProductDTO(null, "Monitor", 900.0);
+		dto.getCategories().add(new CategoryDTO(3L, null));
+		ProductDTO inserted = productService.insert(dto);
+		Path snapshot = dir.resolve("catalog.mv.db");
+		CatalogSnapshot.export(jdbcTemplate, snapshot);
+
+		try (ConfigurableApplicationContext restored = new SpringApplicationBuilder(AulaApplication.class)
+				.web(WebApplicationType.NONE)
+				.run("--app.snapshot.restore-from=" + snapshot)) {
+			ProductService service = restored.getBean(ProductService.class);
+
+			Assertions.assertEquals("Monitor", service.findById(inserted.getId()).getName());
+			Assertions.assertEquals(5L, restored.getBean(JdbcTemplate.class).queryForObject("SELECT COUNT(*) FROM tb_product", Long.class));
+
+			ProductDTO next = new ProductDTO(null, "Webcam", 300.0);
+			next.getCategories().add(new CategoryDTO(2L, null));
+			Assertions.assertTrue(service.insert(next).getId() > inserted.getId());
+			Assertions.assertEquals("Webcam", service.search("webcam", 1).get(0).getName());
+		}
+	}
+}
@@ -0,0 +1,184 @@
+package com.devsuperior.aula.config;
+
+import com.devsuperior.aula.dto.CategoryDTO;
+import com.devsuperior.aula.dto.CategoryRepriceRequestDTO;
+import com.devsuperior.aula.dto.CategoryStatsDTO;
+import com.devsuperior.aula.dto.ProductBatchResultDTO;
+import com.devsuperior.aula.dto.ProductCursorPageDTO;
+import com.devsuperior.aula.dto.ProductDTO;
+import com.devsuperior.aula.services.CategoryService;
+import com.devsuperior.aula.services.ProductService;
+import com.devsuperior.aula.services.exceptions.InvalidDataException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:shardingtests",
+		"app.sharding.shards=3"
+})
+@AutoConfigureMockMvc
+class ShardingTests {
+
+	@Autowired
+	private ProductShards shards;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private CategoryService categoryService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Test
+	void startupShouldReplicateCategoriesAndMoveSeedProductsToTheirShards() {
+		for (int shard = 0; shard < 3; shard++) {
+			Assertions.assertEquals(3L, countOn(shard, "SELECT COUNT(*) FROM tb_category"));
+		}
+		for (long id = 1; id <= 4; id++) {
+			assertOnlyOnItsShard(id);
+		}
+		//o produto 2 tem duas categorias: os dois vinculos foram junto com ele
+		Assertions.assertEquals(2L, countOn(shards.shardOf(2L), "SELECT COUNT(*) FROM tb_product_category WHERE product_id = 2"));
+	}
+
+	@Test
+	void insertShouldWriteEachProductToExactlyOneShard() {
+		List<ProductDTO> batch = new ArrayList<>();
+		for (int i = 0; i < 40; i++) {
+			batch.add(product("Lote " + i, 10.0 + i, 3L));
+		}
+		ProductBatchResultDTO result = productService.insertAll(batch);
+		ProductDTO single = productService.insert(product("Avulso", 5.0, 1L));
+
+		Assertions.assertEquals(40, result.getInserted().size());
+		Assertions.assertEquals("Lote 0", result.getInserted().get(0).getName());
+		Set<Long> ids = new HashSet<>();
+		Set<Integer> usedShards = new HashSet<>();
+		for (ProductDTO dto : result.getInserted()) {
+			ids.add(dto.getId());
+			usedShards.add(shards.shardOf(dto.getId()));
+			assertOnlyOnItsShard(dto.getId());
+		}
+		assertOnlyOnItsShard(single.getId());
+		Assertions.assertEquals(40, ids.size());
+		Assertions.assertEquals(3, usedShards.size());
+
+		ProductDTO found = productService.findById(single.getId());
+		Assertions.assertEquals("Avulso", found.getName());
+		Assertions.assertEquals(List.of(1L), found.getCategories().stream().map(CategoryDTO::getId).toList());
+	}
+
+	@Test
+	void listingShouldMergeAllShardsInIdOrder() {
+		for (int i = 0; i < 10; i++) {
+			productService.insert(product("Listagem " + i, 1.0 + i, 2L));
+		}
+		List<Long> allIds = new ArrayList<>();
+		for (int shard = 0; shard < 3; shard++) {
+			allIds.addAll(shards.on(shard, () -> jdbcTemplate.queryForList("SELECT id FROM tb_product", Long.class)));
+		}
+		allIds.sort(null);
+
+		List<Long> cursorIds = new ArrayList<>();
+		String cursor = null;
+		do {
+			ProductCursorPageDTO page = productService.findAfter(cursor, 7, null);
+			page.getContent().forEach(dto -> cursorIds.add(dto.getId()));
+			cursor = page.getNextCursor();
+		} while (cursor != null);
+		Assertions.assertEquals(allIds, cursorIds);
+
+		Page<ProductDTO> page = productService.findAll(PageRequest.of(1, 5));
+		Assertions.assertEquals(allIds.size(), page.getTotalElements());
+		Assertions.assertEquals(allIds.subList(5, 10), page.getContent().stream().map(ProductDTO::getId).toList());
+		Assertions.assertThrows(InvalidDataException.class, () -> productService.findAll(PageRequest.of(0, 5, Sort.by("name"))));
+	}
+
+	@Test
+	void indexesAndBulkOperationsShouldCoverAllShards() {
+		List<ProductDTO> inserted = new ArrayList<>();
+		for (int i = 0; i < 12; i++) {
+			inserted.add(productService.insert(product("Webcam Sharding " + i, 100.0, 3L)));
+		}
+
+		Assertions.assertEquals(12, productService.search("webcam sharding", 100).size());
+		Assertions.assertEquals(inserted.stream().map(ProductDTO::getId).toList(),
+				categoryService.findProductsByPriceRange(3L, 100.0, 100.0, 100).stream().map(ProductDTO::getId).toList());
+
+		Assertions.assertEquals(countAll("SELECT COUNT(*) FROM tb_product_category WHERE category_id = 3"),
+				categoryService.repriceProducts(3L, new CategoryRepriceRequestDTO(10.0)).getAffectedRows());
+		Assertions.assertEquals(110.0, productService.findById(inserted.get(5).getId()).getPrice());
+		Assertions.assertEquals(12, categoryService.findProductsByPriceRange(3L, 110.0, 110.0, 100).size());
+
+		CategoryStatsDTO computers = categoryService.findStats().stream()
+				.filter(stats -> stats.getCategoryId().equals(3L)).findFirst().orElseThrow();
+		Assertions.assertEquals(countAll("SELECT COUNT(*) FROM tb_product_category WHERE category_id = 3"), computers.getCount());
+	}
+
+	//As consultas da listagem rodam nas threads do fanOut; os contadores delas tem que chegar na requisicao
+	@Test
+	void listingShouldRecordTheStatementsOfEveryShard() throws Exception {
+		double selects = selectsOf("/products");
+
+		mockMvc.perform(get("/products").param("size", "4")).andExpect(status().isOk());
+
+		Assertions.assertTrue(selectsOf("/products") - selects >= 3);
+	}
+
+	private void assertOnlyOnItsShard(long id) {
+		for (int shard = 0; shard < 3; shard++) {
+			long expected = shard == shards.shardOf(id) ? 1L : 0L;
+			Assertions.assertEquals(expected, countOn(shard, "SELECT COUNT(*) FROM tb_product WHERE id = " + id), "produto " + id);
+		}
+	}
+
+	private long countAll(String sql) {
+		long total = 0;
+		for (int shard = 0; shard < 3; shard++) {
+			total += countOn(shard, sql);
+		}
+		return total;
+	}
+
+	private double selectsOf(String uri) {
+		DistributionSummary summary = meterRegistry.find("persistence.statements")
+				.tags("method", "GET", "uri", uri, "type", "select").summary();
+		return summary == null ? 0.0 : summary.totalAmount();
+	}
+
+	private long countOn(int shard, String sql) {
+		return shards.on(shard, () -> jdbcTemplate.queryForObject(sql, Long.class));
+	}
+
+	private ProductDTO product(String name, double price, Long categoryId) {
+		ProductDTO dto = new ProductDTO(null, name, price);
+		dto.getCategories().add(new CategoryDTO(categoryId, null));
+		return dto;
+	}
+}
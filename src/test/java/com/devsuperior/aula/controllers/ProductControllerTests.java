@@ -0,0 +1,188 @@
+package com.devsuperior.aula.controllers;
+
+import com.devsuperior.aula.dto.CategoryDTO;
+import com.devsuperior.aula.dto.ProductBatchResultDTO;
+import com.devsuperior.aula.dto.ProductDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.search.Search;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:productcontrollertests")
+@AutoConfigureMockMvc
+class ProductControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	//O MeterRegistry eh compartilhado pelos testes da classe (e pelo contexto em cache), entao as verificacoes
+	//comparam os totais antes e depois da requisicao, sem depender da ordem dos testes
+	@Test
+	void insertShouldRecordPersistenceMetricsForTheRequest() throws Exception {
+		String json = """
+				{"name": "Kindle", "price": 500.0, "categories": [{"id": 1}, {"id": 2}]}
+				""";
+		double inserts = summaryTotal("persistence.statements", "POST", "/products", "insert");
+		double selects = summaryTotal("persistence.statements", "POST", "/products", "select");
+		double links = summaryTotal("persistence.product_category.rows", "POST", "/products", null);
+		long requests = timerCount("persistence.request.time", "POST", "/products");
+
+		mockMvc.perform(post("/products").contentType(MediaType.APPLICATION_JSON).content(json))
+				.andExpect(status().isCreated())
+				.andExpect(jsonPath("$.categories[0].name").exists());
+
+		Assertions.assertTrue(summaryTotal("persistence.statements", "POST", "/products", "insert") - inserts >= 2);
+		//no maximo a busca de um novo bloco de ids na sequence; as categorias vem do CategoryCache
+		Assertions.assertTrue(summaryTotal("persistence.statements", "POST", "/products", "select") - selects <= 1);
+		Assertions.assertEquals(2.0, summaryTotal("persistence.product_category.rows", "POST", "/products", null) - links);
+		Assertions.assertEquals(1, timerCount("persistence.request.time", "POST", "/products") - requests);
+	}
+
+	@Test
+	void findByIdShouldRecordOneSelect() throws Exception {
+		double selects = summaryTotal("persistence.statements", "GET", "/products/{id}", "select");
+
+		mockMvc.perform(get("/products/{id}", 2L)).andExpect(status().isOk());
+
+		Assertions.assertEquals(1.0, summaryTotal("persistence.statements", "GET", "/products/{id}", "select") - selects);
+	}
+
+	@Test
+	void batchShouldAcceptAndReturnCbor() throws Exception {
+		ObjectMapper cbor = new CBORMapper();
+		MediaType type = MediaType.parseMediaType("application/cbor");
+		ProductDTO first = new ProductDTO(null, "Mouse", 80.0);
+		first.getCategories().add(new CategoryDTO(2L, null));
+		ProductDTO second = new ProductDTO(null, "Teclado", 150.0);
+		second.getCategories().add(new CategoryDTO(2L, null));
+
+		byte[] body = mockMvc.perform(post("/products/batch").contentType(type).accept(type)
+						.content(cbor.writeValueAsBytes(List.of(first, second))))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(type))
+				.andReturn().getResponse().getContentAsByteArray();
+
+		ProductBatchResultDTO result = cbor.readValue(body, ProductBatchResultDTO.class);
+		Assertions.assertEquals(List.of("Mouse", "Teclado"), result.getInserted().stream().map(ProductDTO::getName).toList());
+		Assertions.assertEquals("Eletrônicos", result.getInserted().get(0).getCategories().get(0).getName());
+	}
+
+	@Test
+	void findByIdShouldReturnSmileWhenAccepted() throws Exception {
+		MediaType type = MediaType.parseMediaType("application/x-jackson-smile");
+
+		byte[] body = mockMvc.perform(get("/products/{id}", 3L).accept(type))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(type))
+				.andReturn().getResponse().getContentAsByteArray();
+
+		ProductDTO product = new SmileMapper().readValue(body, ProductDTO.class);
+		Assertions.assertEquals(3L, product.getId());
+		Assertions.assertFalse(product.getCategories().isEmpty());
+	}
+
+	@Test
+	void exportShouldStreamNdjsonWithCategoriesAfterTheGivenId() throws Exception {
+		MvcResult async = mockMvc.perform(get("/products/export").param("afterId", "1"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		String body = mockMvc.perform(asyncDispatch(async))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+				.andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+		ObjectMapper mapper = new ObjectMapper();
+		List<ProductDTO> products = body.lines().map(line -> {
+			try {
+				return mapper.readValue(line, ProductDTO.class);
+			}
+			catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		}).toList();
+		Assertions.assertEquals(List.of(2L, 3L, 4L), products.stream().limit(3).map(ProductDTO::getId).toList());
+		Assertions.assertEquals(List.of("Eletrônicos", "Computadores"),
+				products.get(0).getCategories().stream().map(CategoryDTO::getName).toList());
+	}
+
+	@Test
+	void exportShouldGzipCsvWhenAccepted() throws Exception {
+		MvcResult async = mockMvc.perform(get("/products/export").param("format", "csv").header("Accept-Encoding", "gzip"))
+				.andReturn();
+		byte[] body = mockMvc.perform(asyncDispatch(async))
+				.andExpect(status().isOk())
+				.andExpect(header().string("Content-Encoding", "gzip"))
+				.andReturn().getResponse().getContentAsByteArray();
+
+		List<String> lines;
+		try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+			lines = new String(in.readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+		}
+		Assertions.assertEquals("id,name,price,category_ids,category_names", lines.get(0));
+		Assertions.assertEquals("2,Smart TV,2190.0,2|3,Eletrônicos|Computadores", lines.get(2));
+	}
+
+	@Test
+	void exportShouldNotGzipWhenGzipIsRefused() throws Exception {
+		MvcResult async = mockMvc.perform(get("/products/export").header("Accept-Encoding", "gzip;q=0, identity"))
+				.andReturn();
+		mockMvc.perform(asyncDispatch(async))
+				.andExpect(status().isOk())
+				.andExpect(header().doesNotExist("Content-Encoding"));
+	}
+
+	@Test
+	void acceptsGzipShouldHonorQualityValues() {
+		Assertions.assertTrue(ProductController.acceptsGzip("deflate, gzip;q=0.5"));
+		Assertions.assertTrue(ProductController.acceptsGzip("br;q=1.0, *;q=0.1"));
+		Assertions.assertFalse(ProductController.acceptsGzip("gzip;q=0, *"));
+		Assertions.assertFalse(ProductController.acceptsGzip("x-gzipped-custom, identity"));
+		Assertions.assertFalse(ProductController.acceptsGzip(null));
+	}
+
+	@Test
+	void exportShouldRejectUnknownFormat() throws Exception {
+		mockMvc.perform(get("/products/export").param("format", "xml"))
+				.andExpect(status().isUnprocessableEntity());
+	}
+
+	//Zero enquanto nenhuma requisicao registrou o medidor
+	private double summaryTotal(String name, String method, String uri, String type) {
+		Search search = meterRegistry.find(name).tags("method", method, "uri", uri);
+		DistributionSummary summary = (type == null ? search : search.tag("type", type)).summary();
+		return summary == null ? 0.0 : summary.totalAmount();
+	}
+
+	private long timerCount(String name, String method, String uri) {
+		Timer timer = meterRegistry.find(name).tags("method", method, "uri", uri).timer();
+		return timer == null ? 0 : timer.count();
+	}
+}
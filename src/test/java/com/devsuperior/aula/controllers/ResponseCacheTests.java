@@ -0,0 +1,88 @@
+package com.devsuperior.aula.controllers;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:responsecachetests")
+@AutoConfigureMockMvc
+class ResponseCacheTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Test
+	void getWithMatchingIfNoneMatchShouldReturn304WithoutReachingTheController() throws Exception {
+		String etag = mockMvc.perform(get("/products/{id}", 1L))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		Assertions.assertNotNull(etag);
+		long handled = requestCount();
+
+		mockMvc.perform(get("/products/{id}", 1L).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified())
+				.andExpect(content().string(""));
+		mockMvc.perform(get("/products/{id}", 1L))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.id").value(1));
+
+		Assertions.assertEquals(handled, requestCount());
+	}
+
+	@Test
+	void insertShouldInvalidateCategoryListingsAndCollections() throws Exception {
+		String categoryEtag = mockMvc.perform(get("/categories/{id}/products", 2L))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		String statsEtag = mockMvc.perform(get("/categories/stats"))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		String otherCategoryEtag = mockMvc.perform(get("/categories/{id}/products", 1L))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		mockMvc.perform(post("/products").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"name\": \"Mouse\", \"price\": 80.0, \"categories\": [{\"id\": 2}]}"))
+				.andExpect(status().isCreated());
+
+		mockMvc.perform(get("/categories/{id}/products", 2L).header(HttpHeaders.IF_NONE_MATCH, categoryEtag))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[?(@.name == 'Mouse')]").exists());
+		mockMvc.perform(get("/categories/stats").header(HttpHeaders.IF_NONE_MATCH, statsEtag))
+				.andExpect(status().isOk());
+		mockMvc.perform(get("/categories/{id}/products", 1L).header(HttpHeaders.IF_NONE_MATCH, otherCategoryEtag))
+				.andExpect(status().isNotModified());
+	}
+
+	@Test
+	void repriceShouldInvalidateCachedProducts() throws Exception {
+		String etag = mockMvc.perform(get("/products/{id}", 1L))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		mockMvc.perform(post("/categories/{id}/products:reprice", 1L).contentType(MediaType.APPLICATION_JSON)
+						.content("{\"percent\": 10}"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.affectedRows").value(1));
+
+		mockMvc.perform(get("/products/{id}", 1L).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.price").value(99.55));
+	}
+
+	//Requisicoes que chegaram ao controller de GET /products/{id}
+	private long requestCount() {
+		return meterRegistry.get("persistence.request.time").tags("method", "GET", "uri", "/products/{id}").timer().count();
+	}
+}
@@ -0,0 +1,177 @@
+package com.devsuperior.aula.services;
+
+import com.devsuperior.aula.dto.CategoryDTO;
+import com.devsuperior.aula.dto.CategoryLinkRequestDTO;
+import com.devsuperior.aula.dto.CategoryRepriceRequestDTO;
+import com.devsuperior.aula.dto.CategoryStatsDTO;
+import com.devsuperior.aula.dto.ProductDTO;
+import com.devsuperior.aula.services.exceptions.InvalidDataException;
+import com.devsuperior.aula.services.exceptions.ResourceNotFoundException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+@SpringBootTest
+class CategoryServiceTests {
+
+	@Autowired
+	private CategoryService service;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private CategoryPriceStats categoryPriceStats;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Test
+	void findProductsByPriceRangeShouldReturnProductsOrderedByPriceIncludingNewInserts() {
+		ProductDTO dto = new ProductDTO(null, "Notebook", 1210.0);
+		dto.getCategories().add(new CategoryDTO(3L, null));
+		ProductDTO inserted = productService.insert(dto);
+
+		List<ProductDTO> result = service.findProductsByPriceRange(3L, 1200.0, 1300.0, 10);
+
+		Assertions.assertEquals(List.of(4L, inserted.getId(), 3L), result.stream().map(ProductDTO::getId).toList());
+	}
+
+	@Test
+	void findProductsByPriceRangeShouldThrowResourceNotFoundExceptionWhenCategoryDoesNotExist() {
+		Assertions.assertThrows(ResourceNotFoundException.class, () -> service.findProductsByPriceRange(999L, null, null, 10));
+	}
+
+	@Test
+	void findStatsShouldMatchGroupByIncludingNewInserts() {
+		ProductDTO dto = new ProductDTO(null, "Cabo HDMI", 0.5);
+		dto.getCategories().add(new CategoryDTO(2L, null));
+		dto.getCategories().add(new CategoryDTO(3L, null));
+		productService.insert(dto);
+
+		assertStatsMatchDatabase(service.findStats());
+	}
+
+	@Test
+	void recomputeShouldFixStatsOfChangedCategories() {
+		ProductDTO dto = new ProductDTO(null, "Teclado", 150.0);
+		dto.getCategories().add(new CategoryDTO(1L, null));
+		ProductDTO inserted = productService.insert(dto);
+
+		//Simula um update de preco feito por um caminho que ainda nao atualiza o resumo
+		jdbcTemplate.update("UPDATE tb_product SET price = ? WHERE id = ?", 99999.0, inserted.getId());
+		categoryPriceStats.recompute(List.of(1L));
+
+		List<CategoryStatsDTO> stats = service.findStats();
+		CategoryStatsDTO books = stats.stream().filter(s -> s.getCategoryId().equals(1L)).findFirst().orElseThrow();
+		Assertions.assertEquals("Livros", books.getCategoryName());
+		Assertions.assertEquals(99999.0, books.getMaxPrice());
+		assertStatsMatchDatabase(stats);
+	}
+
+	@Test
+	void recomputeBetweenCommitAndAddShouldNotCountTheInsertTwice() {
+		ProductDTO dto = new ProductDTO(null, "Marcador de pagina", 3.0);
+		dto.getCategories().add(new CategoryDTO(1L, null));
+
+		//O recompute roda depois do commit do insert e antes de o resumo receber o preco dele
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			productService.insert(dto);
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					categoryPriceStats.recompute(List.of(1L));
+				}
+			});
+		});
+
+		assertStatsMatchDatabase(service.findStats());
+	}
+
+	@Test
+	void linkProductsShouldInsertOnlyMissingLinksAndUpdateIndex() {
+		Long categoryId = newCategory("Promocoes");
+		CategoryLinkRequestDTO request = new CategoryLinkRequestDTO();
+		request.setProductIds(List.of(2L, 1L, 999L));
+
+		Assertions.assertEquals(2, service.linkProducts(categoryId, request).getAffectedRows());
+		Assertions.assertEquals(0, service.linkProducts(categoryId, request).getAffectedRows());
+
+		List<ProductDTO> linked = service.findProductsByPriceRange(categoryId, null, null, 10);
+		Assertions.assertEquals(List.of(1L, 2L), linked.stream().map(ProductDTO::getId).toList());
+		Assertions.assertTrue(linked.get(1).getCategories().stream().anyMatch(c -> c.getId().equals(categoryId)));
+		assertStatsMatchDatabase(service.findStats());
+	}
+
+	@Test
+	void linkProductsByFilterShouldLinkProductsOfTheSourceCategoryInThePriceRange() {
+		Long categoryId = newCategory("Premium");
+		CategoryLinkRequestDTO request = new CategoryLinkRequestDTO();
+		request.setFromCategoryId(3L);
+		request.setMinPrice(1000.0);
+
+		long affected = service.linkProducts(categoryId, request).getAffectedRows();
+
+		List<Long> ids = jdbcTemplate.queryForList("SELECT product_id FROM tb_product_category WHERE category_id = ?", Long.class, categoryId);
+		Assertions.assertEquals(ids.size(), affected);
+		Assertions.assertTrue(ids.containsAll(List.of(2L, 3L, 4L)));
+		Assertions.assertEquals(affected, service.findProductsByPriceRange(categoryId, null, null, 1000).size());
+	}
+
+	@Test
+	void repriceProductsShouldUpdatePricesInEveryCategoryOfTheProduct() {
+		Long categoryId = newCategory("Liquidacao");
+		ProductDTO dto = new ProductDTO(null, "Headset", 100.0);
+		dto.getCategories().add(new CategoryDTO(categoryId, null));
+		dto.getCategories().add(new CategoryDTO(2L, null));
+		ProductDTO inserted = productService.insert(dto);
+
+		Assertions.assertEquals(1, service.repriceProducts(categoryId, new CategoryRepriceRequestDTO(10.0)).getAffectedRows());
+
+		Assertions.assertEquals(110.0, productService.findById(inserted.getId()).getPrice());
+		Assertions.assertEquals(List.of(inserted.getId()), service.findProductsByPriceRange(2L, 110.0, 110.0, 10)
+				.stream().map(ProductDTO::getId).toList());
+		Assertions.assertEquals(110.0, productService.search("headset", 10).get(0).getPrice());
+		assertStatsMatchDatabase(service.findStats());
+	}
+
+	@Test
+	void repriceProductsShouldRejectInvalidPercent() {
+		Assertions.assertThrows(InvalidDataException.class, () -> service.repriceProducts(1L, new CategoryRepriceRequestDTO(-100.0)));
+		Assertions.assertThrows(InvalidDataException.class, () -> service.repriceProducts(1L, new CategoryRepriceRequestDTO(null)));
+	}
+
+	private Long newCategory(String name) {
+		jdbcTemplate.update("INSERT INTO tb_category (name) VALUES (?)", name);
+		return jdbcTemplate.queryForObject("SELECT id FROM tb_category WHERE name = ?", Long.class, name);
+	}
+
+	private void assertStatsMatchDatabase(List<CategoryStatsDTO> stats) {
+		List<Object[]> expected = jdbcTemplate.query("SELECT pc.category_id, COUNT(*), MIN(p.price), MAX(p.price), SUM(p.price) "
+						+ "FROM tb_product_category pc JOIN tb_product p ON p.id = pc.product_id GROUP BY pc.category_id ORDER BY pc.category_id",
+				(rs, rowNum) -> new Object[]{rs.getLong(1), rs.getLong(2), rs.getDouble(3), rs.getDouble(4), rs.getDouble(5)});
+
+		Assertions.assertEquals(expected.size(), stats.size());
+		for (int i = 0; i < expected.size(); i++) {
+			Object[] row = expected.get(i);
+			CategoryStatsDTO actual = stats.get(i);
+			Assertions.assertEquals(row[0], actual.getCategoryId());
+			Assertions.assertEquals(row[1], actual.getCount());
+			Assertions.assertEquals((Double) row[2], actual.getMinPrice());
+			Assertions.assertEquals((Double) row[3], actual.getMaxPrice());
+			Assertions.assertEquals((Double) row[4], actual.getTotalPrice(), 1e-6);
+			Assertions.assertEquals((Double) row[4] / (Long) row[1], actual.getAvgPrice(), 1e-6);
+		}
+	}
+}
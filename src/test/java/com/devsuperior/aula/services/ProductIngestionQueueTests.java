@@ -0,0 +1,71 @@
+package com.devsuperior.aula.services;
+
+import com.devsuperior.aula.dto.CategoryDTO;
+import com.devsuperior.aula.dto.IngestionTicketDTO;
+import com.devsuperior.aula.dto.ProductDTO;
+import com.devsuperior.aula.services.exceptions.InvalidDataException;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:ingestionqueuetests",
+		"app.ingestion.async.enabled=true",
+		"app.ingestion.async.max-delay-ms=20"
+})
+class ProductIngestionQueueTests {
+
+	@Autowired
+	private ProductIngestionQueue queue;
+
+	@Autowired
+	private ProductService productService;
+
+	@Test
+	void submitShouldReturnPendingTicketsThatBecomeInserted() {
+		List<IngestionTicketDTO> tickets = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			tickets.add(queue.submit(product("Produto " + i, 1L)));
+		}
+		Assertions.assertEquals("PENDING", tickets.get(0).getStatus());
+
+		Awaitility.await().atMost(Duration.ofSeconds(10)).until(() -> tickets.stream()
+				.allMatch(t -> queue.findTicket(t.getId()).getStatus().equals("INSERTED")));
+
+		Long productId = queue.findTicket(tickets.get(19).getId()).getProductId();
+		Assertions.assertEquals("Produto 19", productService.findById(productId).getName());
+	}
+
+	@Test
+	void productRejectedByTheDatabaseShouldNotRejectTheRestOfItsGroup() {
+		List<IngestionTicketDTO> tickets = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			//o item 5 passa na validacao do submit, mas o nome nao cabe no varchar(255) da coluna
+			tickets.add(queue.submit(product(i == 5 ? "x".repeat(300) : "Grupo " + i, 1L)));
+		}
+
+		Awaitility.await().atMost(Duration.ofSeconds(10)).until(() -> tickets.stream()
+				.noneMatch(t -> queue.findTicket(t.getId()).getStatus().equals("PENDING")));
+
+		for (int i = 0; i < tickets.size(); i++) {
+			Assertions.assertEquals(i == 5 ? "REJECTED" : "INSERTED", queue.findTicket(tickets.get(i).getId()).getStatus(), "ticket " + i);
+		}
+	}
+
+	@Test
+	void submitShouldRejectInvalidProductBeforeQueueing() {
+		Assertions.assertThrows(InvalidDataException.class, () -> queue.submit(product("Produto", 999L)));
+	}
+
+	private ProductDTO product(String name, Long categoryId) {
+		ProductDTO dto = new ProductDTO(null, name, 10.0);
+		dto.getCategories().add(new CategoryDTO(categoryId, null));
+		return dto;
+	}
+}
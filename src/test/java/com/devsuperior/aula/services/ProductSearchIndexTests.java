@@ -0,0 +1,73 @@
+package com.devsuperior.aula.services;
+
+import com.devsuperior.aula.dto.ProductSearchResultDTO;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+class ProductSearchIndexTests {
+
+	private ProductSearchIndex index;
+
+	@BeforeEach
+	void setUp() {
+		index = new ProductSearchIndex();
+		index.index(1L, "The Lord of the Rings", 90.5);
+		index.index(2L, "Smart TV", 2190.0);
+		index.index(3L, "Macbook Pro", 1250.0);
+		index.index(4L, "PC Gamer", 1200.0);
+		index.index(5L, "Eletrônicos Usados", 10.0);
+		index.index(6L, "Mac", 10.0);
+	}
+
+	@Test
+	void searchShouldMatchPrefixesOfEveryTerm() {
+		List<ProductSearchResultDTO> result = index.search("lord of", 10);
+
+		Assertions.assertEquals(List.of(1L), result.stream().map(ProductSearchResultDTO::getId).toList());
+	}
+
+	@Test
+	void searchShouldRankExactTokenBeforePrefix() {
+		List<ProductSearchResultDTO> result = index.search("MAC", 10);
+
+		Assertions.assertEquals(List.of(6L, 3L), result.stream().map(ProductSearchResultDTO::getId).toList());
+	}
+
+	@Test
+	void searchShouldIgnoreAccents() {
+		Assertions.assertEquals(5L, index.search("eletronicos", 10).get(0).getId());
+		Assertions.assertEquals(5L, index.search("Eletrônicos", 10).get(0).getId());
+	}
+
+	@Test
+	void indexShouldReplaceTokensWhenNameChanges() {
+		index.index(2L, "Smart Watch", 900.0);
+
+		Assertions.assertTrue(index.search("tv", 10).isEmpty());
+		Assertions.assertEquals(900.0, index.search("watch", 10).get(0).getPrice());
+	}
+
+	@Test
+	void searchShouldRespectLimit() {
+		index.index(7L, "Macintosh", 10.0);
+
+		Assertions.assertEquals(2, index.search("mac", 2).size());
+	}
+
+	//Com mais candidatos que MAX_CANDIDATES, palavra igual ao termo e primeira palavra sao visitadas antes dos outros prefixos
+	@Test
+	void searchShouldVisitBestMatchesFirstWhenCandidatesExceedTheLimit() {
+		for (long id = 100; id < 100 + ProductSearchIndex.MAX_CANDIDATES * 3L; id++) {
+			index.index(id, "Cabo Acessorio Avulso " + id, 1.0);
+		}
+		index.index(50_000L, "Teclado A", 1.0);
+		index.index(50_001L, "Azul", 1.0);
+
+		Assertions.assertEquals(50_000L, index.search("a", 1).get(0).getId());
+		Assertions.assertEquals(List.of(50_000L, 50_001L), index.search("a", 2).stream().map(ProductSearchResultDTO::getId).toList());
+		Assertions.assertEquals(50_001L, index.search("az", 1).get(0).getId());
+	}
+}
@@ -0,0 +1,177 @@
+package com.devsuperior.aula.services;
+
+import com.devsuperior.aula.dto.CategoryDTO;
+import com.devsuperior.aula.dto.ProductBatchErrorDTO;
+import com.devsuperior.aula.dto.ProductBatchResultDTO;
+import com.devsuperior.aula.dto.ProductCursorPageDTO;
+import com.devsuperior.aula.dto.ProductDTO;
+import com.devsuperior.aula.dto.ProductImportSummaryDTO;
+import com.devsuperior.aula.services.exceptions.InvalidDataException;
+import com.devsuperior.aula.services.exceptions.ResourceNotFoundException;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+@SpringBootTest(properties = {
+		"spring.jpa.properties.hibernate.generate_statistics=true",
+		"logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+class ProductServiceTests {
+
+	@Autowired
+	private ProductService service;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Test
+	void findAllShouldIssueSameNumberOfStatementsWhateverThePageSize() {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+		for (int size : new int[] {1, 2, 4, 50}) {
+			statistics.clear();
+			Page<ProductDTO> page = service.findAll(PageRequest.of(0, size, Sort.by("id")));
+
+			Assertions.assertFalse(page.isEmpty());
+			//ids da pagina, total (o Spring Data pula o COUNT quando a pagina ja mostra o total) e produtos com categorias
+			Assertions.assertTrue(statistics.getPrepareStatementCount() <= 3, "page size " + size);
+		}
+	}
+
+	@Test
+	void findAfterShouldWalkProductsOfCategoryInIdOrder() {
+		List<Long> ids = new ArrayList<>();
+		ProductCursorPageDTO page = service.findAfter(null, 2, 3L);
+		ids.addAll(page.getContent().stream().map(ProductDTO::getId).toList());
+		while (page.getNextCursor() != null) {
+			page = service.findAfter(page.getNextCursor(), 2, 3L);
+			ids.addAll(page.getContent().stream().map(ProductDTO::getId).toList());
+		}
+
+		Assertions.assertEquals(List.of(2L, 3L, 4L), ids.subList(0, 3));
+		Assertions.assertEquals(ids.stream().sorted().distinct().toList(), ids);
+	}
+
+	@Test
+	void findAfterShouldThrowInvalidDataExceptionWhenCursorIsInvalid() {
+		Assertions.assertThrows(InvalidDataException.class, () -> service.findAfter("nao-eh-cursor", 10, null));
+	}
+
+	@Test
+	void findByIdsShouldSkipIdsWithoutProduct() {
+		List<ProductDTO> result = service.findByIds(List.of(2L, 999_999L, 1L));
+
+		Assertions.assertEquals(List.of(2L, 1L), result.stream().map(ProductDTO::getId).toList());
+	}
+
+	@Test
+	void findByIdShouldLoadProductAndCategoriesInOneStatement() {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		ProductDTO dto = service.findById(2L);
+
+		Assertions.assertEquals(2, dto.getCategories().size());
+		Assertions.assertEquals(1, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void findByIdShouldThrowResourceNotFoundExceptionWhenIdDoesNotExist() {
+		Assertions.assertThrows(ResourceNotFoundException.class, () -> service.findById(-1L));
+	}
+
+	@Test
+	void insertShouldReturnCategoryNames() {
+		ProductDTO result = service.insert(product("Kindle", 500.0, 2L));
+
+		Assertions.assertEquals("Eletrônicos", result.getCategories().get(0).getName());
+	}
+
+	@Test
+	void insertShouldThrowInvalidDataExceptionWhenCategoryDoesNotExist() {
+		Assertions.assertThrows(InvalidDataException.class, () -> service.insert(product("Kindle", 500.0, 999L)));
+	}
+
+	@Test
+	void insertAllShouldReturnInsertedProductsAndErrorsByIndex() {
+		List<ProductDTO> dtos = new ArrayList<>();
+		for (int i = 0; i < 1200; i++) {
+			dtos.add(product("Produto " + i, 10.0 + i, 1L));
+		}
+		dtos.set(10, product(" ", 10.0, 1L));
+		dtos.set(700, product("Categoria inexistente", 10.0, 999L));
+
+		ProductBatchResultDTO result = service.insertAll(dtos);
+
+		Assertions.assertEquals(1198, result.getInserted().size());
+		Assertions.assertEquals(2, result.getErrors().size());
+		Assertions.assertEquals(10, result.getErrors().get(0).getIndex());
+		Assertions.assertEquals(700, result.getErrors().get(1).getIndex());
+		Assertions.assertTrue(result.getInserted().stream().allMatch(p -> p.getId() != null && p.getId() > 4));
+	}
+
+	@Test
+	void insertAllShouldReportItemsRejectedByTheDatabaseAndKeepTheOthers() {
+		//Passa no validate, mas o nome nao cabe no varchar(255) da coluna
+		List<ProductDTO> dtos = List.of(product("Antes", 1.0, 1L), product("x".repeat(300), 2.0, 1L), product("Depois", 3.0, 1L));
+
+		ProductBatchResultDTO result = service.insertAll(dtos);
+
+		Assertions.assertEquals(List.of("Antes", "Depois"), result.getInserted().stream().map(ProductDTO::getName).toList());
+		Assertions.assertEquals(1, result.getErrors().size());
+		Assertions.assertEquals(1, result.getErrors().get(0).getIndex());
+		Assertions.assertTrue(result.getErrors().get(0).getMessage().contains("NAME"), result.getErrors().get(0).getMessage());
+	}
+
+	@Test
+	void importStreamShouldInsertValidLinesAndReportInvalidOnes() throws IOException {
+		String ndjson = """
+				{"name": "Kindle", "price": 500.0, "categories": [{"id": 2}]}
+				{"name": "Kindle", "price":
+				
+				{"name": "Dom Casmurro", "price": 30.0, "categories": [{"id": 1}]}
+				null
+				{"name": "", "price": 30.0}
+				""";
+
+		ProductImportSummaryDTO summary = service.importStream(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+
+		Assertions.assertEquals(2, summary.getInserted());
+		Assertions.assertEquals(3, summary.getRejected());
+		Assertions.assertEquals(List.of(1, 3, 4), summary.getErrors().stream().map(ProductBatchErrorDTO::getIndex).toList());
+	}
+
+	@Test
+	void importStreamShouldReportLinesRejectedByTheDatabaseAndKeepImporting() throws IOException {
+		String ndjson = """
+				{"name": "Import 0", "price": 1.0, "categories": [{"id": 1}]}
+				{"name": "%s", "price": 2.0, "categories": [{"id": 1}]}
+				{"name": "Import 2", "price": 3.0, "categories": [{"id": 1}]}
+				""".formatted("x".repeat(300));
+
+		ProductImportSummaryDTO summary = service.importStream(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+
+		Assertions.assertEquals(2, summary.getInserted());
+		Assertions.assertEquals(1, summary.getRejected());
+		Assertions.assertEquals(1, summary.getErrors().get(0).getIndex());
+	}
+
+	private ProductDTO product(String name, Double price, Long categoryId) {
+		ProductDTO dto = new ProductDTO(null, name, price);
+		dto.getCategories().add(new CategoryDTO(categoryId, null));
+		return dto;
+	}
+}